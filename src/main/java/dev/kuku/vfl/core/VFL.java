@@ -2,15 +2,24 @@ package dev.kuku.vfl.core;
 
 import dev.kuku.vfl.core.buffer.VFLBuffer;
 import dev.kuku.vfl.core.dtos.BlockContext;
-import dev.kuku.vfl.core.dtos.BlockEndData;
 import dev.kuku.vfl.core.dtos.EventPublisherBlock;
+import dev.kuku.vfl.core.helpers.MessageFormatting;
 import dev.kuku.vfl.core.helpers.VFLFlowHelper;
+import dev.kuku.vfl.core.helpers.VFLHelper;
+import dev.kuku.vfl.core.helpers.VFLLogLevels;
+import dev.kuku.vfl.core.helpers.VFLSlaBreaches;
+import dev.kuku.vfl.core.helpers.clock.VFLClock;
+import dev.kuku.vfl.core.helpers.clock.VFLClocks;
+import dev.kuku.vfl.core.helpers.pool.VFLEventPool;
+import dev.kuku.vfl.core.models.Attribute;
+import dev.kuku.vfl.core.models.Attributes;
 import dev.kuku.vfl.core.models.Block;
 import dev.kuku.vfl.core.models.logs.enums.LogTypeBlockStartEnum;
 import dev.kuku.vfl.core.models.logs.enums.LogTypeEnum;
 import lombok.extern.slf4j.Slf4j;
 
-import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -25,9 +34,12 @@ import java.util.function.Supplier;
  * <h2>Key Behaviors</h2>
  * <ul>
  *   <li>Ensures a block is "started" before writing logs to it</li>
- *   <li>Supports logging at INFO ({@link #info}), WARN ({@link #warn}), and ERROR ({@link #error}) levels</li>
+ *   <li>Supports logging at TRACE ({@link #trace}), DEBUG ({@link #debug}), INFO ({@link #info}), WARN ({@link #warn}),
+ *   and ERROR ({@link #error}) levels, filtered by {@link VFLLogLevels}</li>
  *   <li>Allows functional-style logging with {@code *Fn} variants that run a lambda and log its result</li>
  *   <li>Enables event publishing via {@link #publish(String, String)} which links producer and consumer traces</li>
+ *   <li>Flags blocks that close over their {@link BlockContext#slaNanos SLA} with a WARN log and counts them
+ *   in {@link VFLSlaBreaches}</li>
  * </ul>
  *
  * <h2>Framework Notes</h2>
@@ -63,41 +75,125 @@ public abstract class VFL {
      */
     public final void ensureBlockStarted() {
         final BlockContext context = getContext();
+        if (context.blockStarted.get()) {
+            return;
+        }
+        final VFLClock clock = VFLClocks.current();
+        // written before the CAS publishes it, so whoever sees the block started also sees its start time
+        context.startNanos = clock.nanoTime();
         if (context.blockStarted.compareAndSet(false, true)) {
-            final long startTimestamp = Instant.now().toEpochMilli();
-            getBuffer().pushLogStartToBuffer(context.blockInfo.getId(), startTimestamp);
+            final long startTimestamp = clock.currentTimeMillis();
+            getBuffer().pushLogStartToBuffer(context.blockInfo, startTimestamp);
         }
     }
 
     /**
      * Closes the current block, pushing an "end" entry into the buffer
      * with an optional final message and timestamp.
+     * A block over its SLA gets a WARN log first, see {@link #flagSlaBreach(BlockContext)}.
      *
      * @param endMessage optional message describing why or how the block completed
      */
     public void close(String endMessage) {
         ensureBlockStarted();
         final BlockContext context = getContext();
-        final long endTimestamp = Instant.now().toEpochMilli();
-        getBuffer().pushLogEndToBuffer(context.blockInfo.getId(), new BlockEndData(endTimestamp, endMessage));
+        final VFLClock clock = VFLClocks.current();
+        final long durationNanos = clock.nanoTime() - context.startNanos;
+        context.durationNanos = durationNanos;
+        if (context.slaNanos > 0 && durationNanos > context.slaNanos) {
+            flagSlaBreach(context);
+        }
+        final long endTimestamp = clock.currentTimeMillis();
+        getBuffer().pushLogEndToBuffer(context.blockInfo, VFLEventPool.blockEnd(endTimestamp, endMessage, durationNanos));
+    }
+
+    /**
+     * Counts the breach and logs a WARN with the measured duration, the SLA and the slowest child,
+     * also as attributes ({@code durationMillis}, {@code slaMillis}, {@code slowestChild},
+     * {@code slowestChildMillis}) so the Hub can index them.
+     */
+    private void flagSlaBreach(BlockContext context) {
+        VFLSlaBreaches.record(context.blockInfo.getBlockName());
+        if (!VFLLogLevels.isEnabled(LogTypeEnum.WARN)) {
+            return;
+        }
+        final long durationMillis = TimeUnit.NANOSECONDS.toMillis(context.durationNanos);
+        final long slaMillis = TimeUnit.NANOSECONDS.toMillis(context.slaNanos);
+        final Attributes attributes = new Attributes(4)
+                .put("durationMillis", durationMillis)
+                .put("slaMillis", slaMillis);
+        final StringBuilder message = new StringBuilder("SLA exceeded: took ").append(durationMillis)
+                .append(" ms, SLA ").append(slaMillis).append(" ms");
+        if (context.slowestChildName != null) {
+            final long childMillis = TimeUnit.NANOSECONDS.toMillis(context.slowestChildNanos);
+            attributes.put("slowestChild", context.slowestChildName).put("slowestChildMillis", childMillis);
+            message.append(", slowest child '").append(context.slowestChildName).append("' took ")
+                    .append(childMillis).append(" ms");
+        }
+        logEnabled(LogTypeEnum.WARN, message.toString(), attributes);
     }
 
     /**
      * Core logging method that ensures the block is started,
      * creates a log entry with the given type and message,
      * and updates the current log ID in context.
+     * Does nothing if the level is disabled for the caller, see {@link VFLLogLevels}.
      */
     private void logInternal(LogTypeEnum type, String message) {
+        if (VFLLogLevels.isEnabled(type)) {
+            logEnabled(type, message);
+        }
+    }
+
+    /**
+     * {@link #logInternal(LogTypeEnum, String)} after the level check.
+     */
+    private void logEnabled(LogTypeEnum type, String message) {
+        logEnabled(type, message, null);
+    }
+
+    private void logEnabled(LogTypeEnum type, String message, Attributes attributes) {
         ensureBlockStarted();
         final BlockContext context = getContext();
-        final var createdLog = VFLFlowHelper.CreateLogAndPush2Buffer(
-                context.blockInfo.getId(),
+        context.currentLogId = VFLFlowHelper.CreateLogAndPush2Buffer(
+                context.blockInfo,
                 context.currentLogId,
                 type,
                 message,
+                attributes,
+                getBuffer()
+        );
+    }
+
+    /**
+     * Same as {@link #logInternal(LogTypeEnum, String)} for a message template with arguments,
+     * formatted according to {@link #getMessageFormatting()}.
+     * {@link Attribute}s among the arguments are attached to the log instead of being formatted.
+     */
+    private void logInternal(LogTypeEnum type, String messageTemplate, Object[] args) {
+        if (!VFLLogLevels.isEnabled(type)) {
+            return;
+        }
+        final Attributes attributes = Attributes.from(args);
+        if (attributes != null) {
+            args = Attributes.withoutAttributes(args);
+        }
+        final MessageFormatting formatting = getMessageFormatting();
+        if (formatting == null || formatting == MessageFormatting.EAGER || args == null || args.length == 0) {
+            logEnabled(type, VFLHelper.FormatMessage(messageTemplate, args), attributes);
+            return;
+        }
+        ensureBlockStarted();
+        final BlockContext context = getContext();
+        context.currentLogId = VFLFlowHelper.CreateDeferredLogAndPush2Buffer(
+                context.blockInfo,
+                context.currentLogId,
+                type,
+                messageTemplate,
+                formatting.capture(args),
+                attributes,
                 getBuffer()
         );
-        context.currentLogId = createdLog.getId();
     }
 
     /**
@@ -106,13 +202,73 @@ public abstract class VFL {
      */
     private <R> R logFnInternal(LogTypeEnum type, Supplier<R> fn, Function<R, String> messageSerializer) {
         final R result = fn.get();
-        final String message = messageSerializer.apply(result);
-        logInternal(type, message);
+        if (VFLLogLevels.isEnabled(type)) {
+            logEnabled(type, messageSerializer.apply(result));
+        }
         return result;
     }
 
     // ========== PUBLIC LOGGING METHODS ==========
 
+    /**
+     * Executes a supplier and logs a message built from its result and the arguments at the given level.
+     * {@link Attribute}s among the arguments are attached to the log; the serializer receives the arguments
+     * without them and is only called if the level is enabled.
+     */
+    public final <R> R logFn(LogTypeEnum type, Supplier<R> fn, Object[] args, BiFunction<Object[], R, String> messageSerializer) {
+        final R result = fn.get();
+        if (VFLLogLevels.isEnabled(type)) {
+            final Attributes attributes = Attributes.from(args);
+            final Object[] messageArgs = attributes == null ? args : Attributes.withoutAttributes(args);
+            logEnabled(type, messageSerializer.apply(messageArgs, result), attributes);
+        }
+        return result;
+    }
+
+    /**
+     * Log a message at TRACE level. Disabled by default, see {@link VFLLogLevels}.
+     */
+    public final void trace(String message) {
+        logInternal(LogTypeEnum.TRACE, message);
+    }
+
+    /**
+     * Log a message template with arguments at TRACE level.
+     */
+    public final void trace(String messageTemplate, Object[] args) {
+        logInternal(LogTypeEnum.TRACE, messageTemplate, args);
+    }
+
+    /**
+     * Executes a supplier and logs its result at TRACE level.
+     * The serializer is only called if TRACE is enabled.
+     */
+    public final <R> R traceFn(Supplier<R> fn, Function<R, String> messageSerializer) {
+        return logFnInternal(LogTypeEnum.TRACE, fn, messageSerializer);
+    }
+
+    /**
+     * Log a message at DEBUG level. Disabled by default, see {@link VFLLogLevels}.
+     */
+    public final void debug(String message) {
+        logInternal(LogTypeEnum.DEBUG, message);
+    }
+
+    /**
+     * Log a message template with arguments at DEBUG level.
+     */
+    public final void debug(String messageTemplate, Object[] args) {
+        logInternal(LogTypeEnum.DEBUG, messageTemplate, args);
+    }
+
+    /**
+     * Executes a supplier and logs its result at DEBUG level.
+     * The serializer is only called if DEBUG is enabled.
+     */
+    public final <R> R debugFn(Supplier<R> fn, Function<R, String> messageSerializer) {
+        return logFnInternal(LogTypeEnum.DEBUG, fn, messageSerializer);
+    }
+
     /**
      * Log a message at INFO/MESSAGE level.
      */
@@ -120,6 +276,14 @@ public abstract class VFL {
         logInternal(LogTypeEnum.MESSAGE, message);
     }
 
+    /**
+     * Log a message template with arguments at INFO/MESSAGE level.
+     * Formatting may be deferred, see {@link #getMessageFormatting()}.
+     */
+    public final void info(String messageTemplate, Object[] args) {
+        logInternal(LogTypeEnum.MESSAGE, messageTemplate, args);
+    }
+
     /**
      * Executes a supplier and logs its result at MESSAGE level.
      * Allows result-based dynamic message generation.
@@ -135,6 +299,13 @@ public abstract class VFL {
         logInternal(LogTypeEnum.WARN, message);
     }
 
+    /**
+     * Log a message template with arguments at WARN level.
+     */
+    public final void warn(String messageTemplate, Object[] args) {
+        logInternal(LogTypeEnum.WARN, messageTemplate, args);
+    }
+
     /**
      * Executes a supplier and logs its result at WARN level.
      */
@@ -156,6 +327,13 @@ public abstract class VFL {
         logInternal(LogTypeEnum.ERROR, message);
     }
 
+    /**
+     * Log a message template with arguments at ERROR level.
+     */
+    public final void error(String messageTemplate, Object[] args) {
+        logInternal(LogTypeEnum.ERROR, messageTemplate, args);
+    }
+
     // ========== EVENT PUBLISHING ==========
 
     /**
@@ -168,20 +346,19 @@ public abstract class VFL {
      * @return the created {@link EventPublisherBlock} representing this publish action
      */
     public final EventPublisherBlock publish(String publisherName, String message) {
-        Block publisherBlock = VFLFlowHelper.CreateBlockAndPush2Buffer(
+        Block publisherBlock = VFLFlowHelper.CreateChildBlockAndPush2Buffer(
                 publisherName,
-                getContext().blockInfo.getId(),
+                getContext().blockInfo,
                 getBuffer()
         );
-        var publishLog = VFLFlowHelper.CreateLogAndPush2Buffer(
-                getContext().blockInfo.getId(),
+        getContext().currentLogId = VFLFlowHelper.CreateLogAndPush2Buffer(
+                getContext().blockInfo,
                 getContext().currentLogId,
                 message,
                 publisherBlock.getId(),
                 LogTypeBlockStartEnum.PUBLISH_EVENT,
                 getBuffer()
         );
-        getContext().currentLogId = publishLog.getId();
         return new EventPublisherBlock(publisherBlock);
     }
 
@@ -194,4 +371,12 @@ public abstract class VFL {
      * @return The {@link VFLBuffer} to receive log entries for this context
      */
     protected abstract VFLBuffer getBuffer();
+
+    /**
+     * @return How messages logged with a template and arguments are formatted.
+     * {@link MessageFormatting#EAGER} unless overridden.
+     */
+    protected MessageFormatting getMessageFormatting() {
+        return MessageFormatting.EAGER;
+    }
 }
@@ -3,16 +3,21 @@ package dev.kuku.vfl.core.buffer;
 import dev.kuku.vfl.core.buffer.abstracts.VFLBufferWithFlushHandlerBase;
 import dev.kuku.vfl.core.buffer.flushHandler.VFLFlushHandler;
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.dtos.ShutdownReport;
 import dev.kuku.vfl.core.models.logs.Log;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Asynchronous buffer implementation of {@link VFLBuffer} that batches log and block data
@@ -26,16 +31,18 @@ import java.util.concurrent.TimeUnit;
  *   <li>Batches incoming logs, blocks, and start/end events for efficient flushing</li>
  *   <li>Flushes buffered data asynchronously via a provided {@link ExecutorService}</li>
  *   <li>Periodically flushes at a configurable interval via a scheduled executor</li>
- *   <li>Gracefully shuts down executors and flushes all pending data on {@link #flush()}</li>
+ *   <li>Flushes all pending data on {@link #flush()} without stopping anything</li>
+ *   <li>Gracefully shuts down executors and flushes all pending data on {@link #shutdown(Duration)},
+ *       within a single deadline; events pushed once the shutdown has begun are rejected and counted</li>
  *   <li>Falls back to synchronous flush if the executor rejects tasks (e.g., during shutdown)</li>
  * </ul>
  *
  * <p><b>Usage notes:</b>
  * <ul>
- *   <li>The {@code flushTimeout} controls how long the buffer waits for async flush tasks
- *       to complete during {@link #flush()} shutdown before forcing a shutdown</li>
+ *   <li>The {@code flushTimeout} is how long {@link #flush()} waits for in-flight flushes</li>
  *   <li>Construct with your own configured executors and flush handler implementation</li>
- *   <li>Make sure to call {@link #flush()} at shutdown to avoid losing buffered data</li>
+ *   <li>Make sure to call {@link #shutdown(Duration)} at shutdown to avoid losing buffered data, or register
+ *       the buffer with {@link VFLShutdownCoordinator} to have it done by a JVM shutdown hook</li>
  * </ul>
  */
 @Slf4j
@@ -44,12 +51,19 @@ public class AsyncBuffer extends VFLBufferWithFlushHandlerBase {
     private final ExecutorService flushExecutor;
     private final ScheduledExecutorService periodicExecutor;
     private final int flushTimeout;
+    /** Items handed to the flush executor whose flush has not completed yet */
+    private final AtomicLong inFlightItems = new AtomicLong();
+    /** Set when the shutdown begins; pushes are rejected from then on */
+    private volatile boolean closed = false;
+    /** Pushes that read {@link #closed} as false and may not have reached the buffer yet */
+    private final AtomicInteger pendingPushes = new AtomicInteger();
+    private final AtomicLong rejectedItems = new AtomicLong();
 
     /**
      * Constructs an AsyncBuffer instance.
      *
      * @param bufferSize               max number of buffered items before automatic flush
-     * @param finalFlushTimeoutMillisecond max millis to wait for async flush tasks to complete on shutdown
+     * @param finalFlushTimeoutMillisecond max millis {@link #flush()} waits for async flush tasks to complete
      * @param periodicFlushTimeMillisecond interval in millis to trigger periodic flushes
      * @param flushHandler             handler responsible for sending flushed data to destination
      * @param bufferFlushExecutor      executor for async flush task execution
@@ -73,6 +87,68 @@ public class AsyncBuffer extends VFLBufferWithFlushHandlerBase {
                 TimeUnit.MILLISECONDS);
     }
 
+    @Override
+    public void pushLogToBuffer(Log log) {
+        pendingPushes.incrementAndGet();
+        try {
+            if (accepting()) {
+                super.pushLogToBuffer(log);
+            }
+        } finally {
+            pendingPushes.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void pushBlockToBuffer(Block block) {
+        pendingPushes.incrementAndGet();
+        try {
+            if (accepting()) {
+                super.pushBlockToBuffer(block);
+            }
+        } finally {
+            pendingPushes.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void pushLogStartToBuffer(VFLId blockId, long timestamp) {
+        pendingPushes.incrementAndGet();
+        try {
+            if (accepting()) {
+                super.pushLogStartToBuffer(blockId, timestamp);
+            }
+        } finally {
+            pendingPushes.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void pushLogEndToBuffer(VFLId blockId, BlockEndData endData) {
+        pendingPushes.incrementAndGet();
+        try {
+            if (accepting()) {
+                super.pushLogEndToBuffer(blockId, endData);
+            }
+        } finally {
+            pendingPushes.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return true if the buffer still takes pushes; otherwise counts the rejected one
+     */
+    private boolean accepting() {
+        if (!closed) {
+            return true;
+        }
+        long count = rejectedItems.incrementAndGet();
+        if (count == 1 || count % 1000 == 0) {
+            log.warn("Rejected {} events pushed after shutdown of {}", count, this);
+        }
+        return false;
+    }
+
     /**
      * Executes the flush asynchronously using the flush executor.
      * If the executor is shut down or rejects the task, performs a synchronous flush.
@@ -80,59 +156,123 @@ public class AsyncBuffer extends VFLBufferWithFlushHandlerBase {
     @Override
     protected void executeFlushAll(List<Log> logs,
                                    List<Block> blocks,
-                                   Map<String, Long> blockStarts,
-                                   Map<String, BlockEndData> blockEnds) {
+                                   Map<VFLId, Long> blockStarts,
+                                   Map<VFLId, BlockEndData> blockEnds) {
         if (flushExecutor.isShutdown()) {
             log.debug("Executor is shutdown, performing synchronous flush");
             performOrderedFlush(logs, blocks, blockStarts, blockEnds);
             return;
         }
 
+        long itemCount = logs.size() + blocks.size() + blockStarts.size() + blockEnds.size();
+        inFlightItems.addAndGet(itemCount);
         try {
-            flushExecutor.submit(() -> performOrderedFlush(logs, blocks, blockStarts, blockEnds));
+            flushExecutor.execute(() -> {
+                try {
+                    performOrderedFlush(logs, blocks, blockStarts, blockEnds);
+                } finally {
+                    inFlightItems.addAndGet(-itemCount);
+                }
+            });
         } catch (RejectedExecutionException e) {
+            inFlightItems.addAndGet(-itemCount);
             log.warn("Task rejected by executor (likely shutting down), performing synchronous flush", e);
             performOrderedFlush(logs, blocks, blockStarts, blockEnds);
         }
     }
 
     /**
-     * Flushes all remaining data, shuts down executors with a timeout,
-     * and closes the flush handler.
-     *
-     * @throws RuntimeException if the flush executor did not terminate within the timeout
+     * Hands the buffered data to the flush executor and waits up to {@code flushTimeout} milliseconds for
+     * the flushes in flight to complete. Nothing is shut down or closed: the buffer keeps accepting events
+     * and flushing periodically, so this can be called at the end of every root block.
+     * A flush that does not complete in time is logged as a warning; this method never throws.
      */
     @Override
     public void flush() {
-        // Stop periodic flushes to avoid race conditions during shutdown
-        periodicExecutor.shutdown();
-
-        // Flush any buffered data
         super.flushAll();
-
-        // Shutdown flush executor and wait for tasks to complete
-        flushExecutor.shutdown();
-
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushTimeout);
         try {
-            int elapsed = 0;
-            while (elapsed < flushTimeout) {
-                if (flushExecutor.awaitTermination(100, TimeUnit.MILLISECONDS)) {
-                    log.debug("Finished flush executor shutdown. Closing flush handler.");
-                    flushHandler.closeFlushHandler();
-                    log.debug("Finished complete flush");
+            while (inFlightItems.get() > 0) {
+                if (deadline - System.nanoTime() <= 0) {
+                    log.warn("Flush did not complete within {}ms, {} items still in flight", flushTimeout, inFlightItems.get());
                     return;
                 }
-                elapsed += 100;
+                Thread.sleep(1);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            // Timeout reached - force shutdown and report error
-            flushExecutor.shutdownNow();
-            throw new RuntimeException("Flush timeout exceeded: " + flushTimeout + "ms");
+    /**
+     * Drains the buffer within one overall deadline, in this order:
+     * <ol>
+     *   <li>Stops periodic flushes and hands the currently buffered data to the flush executor</li>
+     *   <li>Stops the flush executor and waits for in-flight flushes; those still queued or running
+     *       at the deadline are cancelled and counted as dropped</li>
+     *   <li>Flushes, synchronously, anything that was being pushed when the shutdown began, or discards it
+     *       if the deadline has already passed</li>
+     *   <li>Lets the flush handler drain what it still holds (e.g., pending retries) with the remaining time,
+     *       then closes it</li>
+     * </ol>
+     * Events pushed once the shutdown has begun are rejected and counted in the report; later calls
+     * return a clean report without doing anything.
+     */
+    @Override
+    public synchronized ShutdownReport shutdown(Duration timeout) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        if (closed) {
+            return ShutdownReport.clean(0);
+        }
+        closed = true;
+
+        // 1. Buffered data
+        periodicExecutor.shutdown();
+        super.flushAll();
+
+        // 2. In-flight flushes
+        flushExecutor.shutdown();
+        boolean deadlineExceeded = false;
+        long droppedInFlight = 0;
+        try {
+            if (!flushExecutor.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                deadlineExceeded = true;
+            }
         } catch (InterruptedException e) {
-            flushExecutor.shutdownNow();
             Thread.currentThread().interrupt();
-            throw new RuntimeException("Interrupted during shutdown", e);
+            deadlineExceeded = true;
+        }
+        if (deadlineExceeded) {
+            flushExecutor.shutdownNow();
+            droppedInFlight = inFlightItems.get();
+            log.warn("Flush executor did not finish within {}ms, {} in-flight items dropped",
+                    timeout.toMillis(), droppedInFlight);
         }
+
+        // 3. Pushes that started before the shutdown; the executor is shut down so this flush runs on the current thread
+        while (pendingPushes.get() > 0 && deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+        long droppedBuffered = 0;
+        if (deadline - System.nanoTime() > 0) {
+            super.flushAll();
+        } else {
+            droppedBuffered = discardAll();
+        }
+
+        // 4. Retries held by the flush handler
+        long droppedRetries = 0;
+        try {
+            droppedRetries = flushHandler.drainAndClose(Duration.ofNanos(Math.max(deadline - System.nanoTime(), 0)));
+        } catch (Exception e) {
+            log.error("Failed to close flush handler {}", flushHandler, e);
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.debug("Finished shutdown in {}ms", elapsedMillis);
+        return new ShutdownReport(elapsedMillis, deadlineExceeded || droppedBuffered > 0,
+                droppedBuffered, droppedInFlight, droppedRetries, rejectedItems.get());
     }
 
     @Override
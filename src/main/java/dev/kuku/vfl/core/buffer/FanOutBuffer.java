@@ -0,0 +1,464 @@
+package dev.kuku.vfl.core.buffer;
+
+import dev.kuku.vfl.core.buffer.flushHandler.OrderedPushExecutor;
+import dev.kuku.vfl.core.buffer.flushHandler.VFLFlushHandler;
+import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.dtos.ShutdownReport;
+import dev.kuku.vfl.core.helpers.pool.VFLEventPool;
+import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
+import dev.kuku.vfl.core.models.logs.Log;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link VFLBuffer} that tees every pushed event to several {@link VFLFlushHandler}s,
+ * e.g. the VFL Hub plus a local file, with full isolation between destinations.
+ *
+ * <p>Each destination gets its own bounded queue, its own batch size and its own worker thread.
+ * Pushing an event only offers it to each queue (never blocks); if a destination's queue is full
+ * the event is dropped <b>for that destination only</b> and counted in {@link #droppedCounts()}.
+ * A slow or failing destination therefore never delays or loses data for the others.</p>
+ *
+ * <h2>Batching</h2>
+ * A destination's worker flushes its current batch when it reaches the destination's
+ * {@code batchSize}, or when the oldest event in the batch has waited {@code flushIntervalMillisecond}.
+ * Each batch is pushed through an {@link OrderedPushExecutor}, so the handler's declared
+ * push ordering is respected.
+ *
+ * <p>Events taken from {@link VFLEventPool} are returned to it once every destination has pushed
+ * or dropped them, provided none of the handlers {@linkplain VFLFlushHandler#retainsEvents() retains events}.</p>
+ *
+ * <h2>Example:</h2>
+ * <pre>{@code
+ * VFLBuffer buffer = new FanOutBuffer(List.of(
+ *         new FanOutBuffer.Destination(new VFLHubFlushHandler(hubUri), 10_000, 500),
+ *         new FanOutBuffer.Destination(new NestedJsonFlushHandler("trace.json"), 50_000, 1_000)),
+ *         200, 3000);
+ * }</pre>
+ */
+@Slf4j
+public class FanOutBuffer implements VFLBuffer {
+
+    /**
+     * Configuration of one destination.
+     *
+     * @param flushHandler  handler that delivers batches to the destination
+     * @param queueCapacity max number of events waiting for this destination before new ones are dropped
+     * @param batchSize     max number of events pushed to the handler in one flush
+     */
+    public record Destination(VFLFlushHandler flushHandler, int queueCapacity, int batchSize) {
+    }
+
+    private static final Object POISON = new Object();
+
+    private final List<Lane> lanes;
+    private final int flushTimeout;
+    // Pooled events are shared by all lanes and may only be recycled by the last one done with them
+    private final boolean recycleShared;
+    private boolean shutDown = false;
+
+    /**
+     * @param destinations                 destinations to feed; each gets an independent queue and worker
+     * @param flushIntervalMillisecond     max time an event waits in a partial batch before being flushed
+     * @param finalFlushTimeoutMillisecond max millis {@link #flush()} waits for all destinations to push what they hold
+     */
+    public FanOutBuffer(List<Destination> destinations,
+                        int flushIntervalMillisecond,
+                        int finalFlushTimeoutMillisecond) {
+        this.flushTimeout = finalFlushTimeoutMillisecond;
+        this.lanes = new ArrayList<>(destinations.size());
+        boolean retained = destinations.stream().anyMatch(d -> d.flushHandler().retainsEvents());
+        this.recycleShared = destinations.size() > 1 && !retained;
+        for (int i = 0; i < destinations.size(); i++) {
+            Lane lane = new Lane(destinations.get(i), flushIntervalMillisecond, "vfl-fanout-" + i,
+                    destinations.size() == 1 && !retained);
+            lanes.add(lane);
+            lane.worker.start();
+        }
+    }
+
+    @Override
+    public void pushLogToBuffer(Log log) {
+        offerToAll(log);
+    }
+
+    @Override
+    public void pushBlockToBuffer(Block block) {
+        offerToAll(block);
+    }
+
+    @Override
+    public void pushLogStartToBuffer(VFLId blockId, long timestamp) {
+        offerToAll(new BlockStart(blockId, timestamp));
+    }
+
+    @Override
+    public void pushLogEndToBuffer(VFLId blockId, BlockEndData endData) {
+        offerToAll(new BlockEnd(blockId, endData));
+    }
+
+    /**
+     * Has every destination's worker push what it holds and waits up to {@code finalFlushTimeoutMillisecond}
+     * for all of them. Nothing is stopped or closed, so this can be called at the end of every root block.
+     * A destination that does not finish in time is logged as a warning; this method never throws.
+     */
+    @Override
+    public void flush() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushTimeout);
+        CountDownLatch flushed = new CountDownLatch(lanes.size());
+        for (Lane lane : lanes) {
+            lane.requestFlush(flushed, deadline);
+        }
+        try {
+            if (!flushed.await(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                log.warn("Flush did not complete within {}ms for {} destinations", flushTimeout, flushed.getCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Drains every destination within one overall deadline: stops accepting events, lets each worker push
+     * what its queue still holds, then has each flush handler drain what it holds (e.g., pending retries)
+     * with the remaining time and closes it. Workers still busy at the deadline are abandoned and their
+     * queued events counted as dropped. A failure in one destination does not prevent the others from
+     * being drained and closed.
+     *
+     * <p>Counts are summed over destinations, so an event rejected by all of them counts once per destination.
+     * Later calls return a clean report without doing anything.</p>
+     */
+    @Override
+    public synchronized ShutdownReport shutdown(Duration timeout) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        if (shutDown) {
+            return ShutdownReport.clean(0);
+        }
+        shutDown = true;
+        for (Lane lane : lanes) {
+            lane.stop();
+        }
+        boolean deadlineExceeded = false;
+        long droppedBuffered = 0;
+        for (Lane lane : lanes) {
+            try {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                lane.worker.join(Math.max(remainingMillis, 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Interrupted while draining destination {}", lane.destination.flushHandler());
+            }
+            if (lane.worker.isAlive()) {
+                deadlineExceeded = true;
+                int left = lane.abandon();
+                droppedBuffered += left;
+                log.warn("Destination {} did not drain within {}ms, {} events left in its queue",
+                        lane.destination.flushHandler(), timeout.toMillis(), left);
+            }
+        }
+        long droppedRetries = 0;
+        long rejected = 0;
+        for (Lane lane : lanes) {
+            rejected += lane.rejected.get();
+            try {
+                droppedRetries += lane.destination.flushHandler()
+                        .drainAndClose(Duration.ofNanos(Math.max(deadline - System.nanoTime(), 0)));
+            } catch (Exception e) {
+                log.error("Failed to close flush handler {}", lane.destination.flushHandler(), e);
+            }
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new ShutdownReport(elapsedMillis, deadlineExceeded, droppedBuffered, 0, droppedRetries, rejected);
+    }
+
+    /**
+     * @return number of events dropped so far for each destination because its queue was full
+     * or the buffer was already flushed
+     */
+    public Map<VFLFlushHandler, Long> droppedCounts() {
+        Map<VFLFlushHandler, Long> result = new LinkedHashMap<>();
+        for (Lane lane : lanes) {
+            result.put(lane.destination.flushHandler(), lane.dropped.get());
+        }
+        return result;
+    }
+
+    private void offerToAll(Object event) {
+        if (recycleShared && !(event instanceof Block) && !(event instanceof BlockStart) && VFLEventPool.isEnabled()) {
+            event = new Shared(event, lanes.size());
+        }
+        for (Lane lane : lanes) {
+            lane.offer(event);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FanOutBuffer{" +
+                "destinations=" + lanes.stream().map(l -> l.destination).toList() +
+                ", flushTimeout=" + flushTimeout +
+                '}';
+    }
+
+    private record BlockStart(VFLId blockId, long timestamp) {
+    }
+
+    private record BlockEnd(VFLId blockId, BlockEndData endData) {
+    }
+
+    /**
+     * Queued behind the events to flush; the worker pushes its batch on taking it and counts down.
+     */
+    private record FlushRequest(CountDownLatch flushed) {
+    }
+
+    /**
+     * A pooled event offered to several lanes, recycled by the last lane that pushed or dropped it.
+     */
+    private static final class Shared {
+        private static final AtomicIntegerFieldUpdater<Shared> REMAINING =
+                AtomicIntegerFieldUpdater.newUpdater(Shared.class, "remaining");
+
+        private final Object event;
+        private volatile int remaining;
+
+        Shared(Object event, int lanes) {
+            this.event = event;
+            this.remaining = lanes;
+        }
+
+        /**
+         * @return true if the calling lane was the last one holding the event
+         */
+        boolean done() {
+            return REMAINING.decrementAndGet(this) == 0;
+        }
+    }
+
+    /**
+     * Queue + worker of a single destination.
+     */
+    private static final class Lane {
+        private final Destination destination;
+        private final BlockingQueue<Object> queue;
+        private final long flushIntervalNanos;
+        private final OrderedPushExecutor pushExecutor = OrderedPushExecutor.DEFAULT;
+        private final AtomicLong dropped = new AtomicLong();
+        // Subset of dropped: events offered after the lane was stopped
+        private final AtomicLong rejected = new AtomicLong();
+        // Offers between reading 'running' and finishing queue.offer; the worker waits for them before exiting
+        private final AtomicInteger pendingOffers = new AtomicInteger();
+        // True if this lane is the only holder of the events it receives and may recycle them
+        private final boolean ownsEvents;
+        private final Thread worker;
+        private volatile boolean running = true;
+        // Set when the shutdown deadline passed; the worker then exits without pushing anything more
+        private volatile boolean abandoned = false;
+
+        Lane(Destination destination, int flushIntervalMillisecond, String threadName, boolean ownsEvents) {
+            this.destination = destination;
+            this.queue = new ArrayBlockingQueue<>(destination.queueCapacity());
+            this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillisecond);
+            this.ownsEvents = ownsEvents;
+            this.worker = new Thread(this::run, threadName);
+            this.worker.setDaemon(true);
+        }
+
+        void offer(Object event) {
+            boolean accepted;
+            boolean stopped;
+            pendingOffers.incrementAndGet();
+            try {
+                stopped = !running;
+                accepted = !stopped && queue.offer(event);
+            } finally {
+                pendingOffers.decrementAndGet();
+            }
+            if (accepted) {
+                return;
+            }
+            if (stopped) {
+                rejected.incrementAndGet();
+            }
+            long count = dropped.incrementAndGet();
+            if (count == 1 || count % 1000 == 0) {
+                log.warn("Dropped {} events for destination {} (queue full or buffer flushed)",
+                        count, destination.flushHandler());
+            }
+            if (event instanceof Shared shared && shared.done()) {
+                recycle(List.of(shared.event));
+            }
+        }
+
+        /**
+         * Queues a flush request, waiting until the deadline for room in the queue. A stopped lane,
+         * or one whose queue stays full, counts down right away.
+         */
+        void requestFlush(CountDownLatch flushed, long deadline) {
+            boolean queued = false;
+            pendingOffers.incrementAndGet();
+            try {
+                queued = running && queue.offer(new FlushRequest(flushed),
+                        Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                pendingOffers.decrementAndGet();
+            }
+            if (!queued) {
+                flushed.countDown();
+            }
+        }
+
+        void stop() {
+            running = false;
+            // Wake the worker early; if the queue is full it drains it without waiting anyway
+            queue.offer(POISON);
+        }
+
+        /**
+         * Gives up on a worker that missed the deadline.
+         *
+         * @return number of events left in the queue
+         */
+        int abandon() {
+            abandoned = true;
+            worker.interrupt();
+            return queue.size();
+        }
+
+        private void run() {
+            List<Object> batch = new ArrayList<>(destination.batchSize());
+            long batchStartedAt = 0;
+            while (!abandoned) {
+                long timeout;
+                if (!running) {
+                    timeout = 0;
+                } else if (batch.isEmpty()) {
+                    timeout = flushIntervalNanos;
+                } else {
+                    timeout = Math.max(batchStartedAt + flushIntervalNanos - System.nanoTime(), 0);
+                }
+                Object event;
+                try {
+                    event = queue.poll(timeout, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (event != null && event != POISON) {
+                    if (batch.isEmpty()) {
+                        batchStartedAt = System.nanoTime();
+                    }
+                    batch.add(event);
+                    queue.drainTo(batch, destination.batchSize() - batch.size());
+                }
+                // drainTo may have pulled the poison pill and flush requests into the batch
+                List<CountDownLatch> flushRequests = takeMarkers(batch);
+                // Read in this order: once stopped, every offer either saw 'running' false or is visible in the queue
+                boolean finished = !running && pendingOffers.get() == 0 && queue.isEmpty();
+                boolean due = batch.size() >= destination.batchSize()
+                        || (!batch.isEmpty() && System.nanoTime() - batchStartedAt >= flushIntervalNanos);
+                if ((due || ((finished || !flushRequests.isEmpty()) && !batch.isEmpty())) && !abandoned) {
+                    pushBatch(batch);
+                    batch.clear();
+                }
+                flushRequests.forEach(CountDownLatch::countDown);
+                if (finished) {
+                    break;
+                }
+                if (event == null && !running) {
+                    Thread.onSpinWait(); // an offer that started before the stop is still in progress
+                }
+            }
+            if (!batch.isEmpty() && !abandoned) {
+                pushBatch(batch);
+            }
+        }
+
+        /**
+         * Removes the poison pill and flush requests from the batch.
+         *
+         * @return latches of the removed flush requests
+         */
+        private static List<CountDownLatch> takeMarkers(List<Object> batch) {
+            List<CountDownLatch> flushRequests = List.of();
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                Object item = batch.get(i);
+                if (item == POISON) {
+                    batch.remove(i);
+                } else if (item instanceof FlushRequest request) {
+                    batch.remove(i);
+                    if (flushRequests.isEmpty()) {
+                        flushRequests = new ArrayList<>();
+                    }
+                    flushRequests.add(request.flushed());
+                }
+            }
+            return flushRequests;
+        }
+
+        private void pushBatch(List<Object> batch) {
+            List<Log> logs = new ArrayList<>();
+            List<Block> blocks = new ArrayList<>();
+            Map<VFLId, Long> starts = new HashMap<>();
+            Map<VFLId, BlockEndData> ends = new HashMap<>();
+            for (Object item : batch) {
+                Object event = item instanceof Shared shared ? shared.event : item;
+                if (event instanceof Log l) {
+                    logs.add(l);
+                } else if (event instanceof Block b) {
+                    blocks.add(b);
+                } else if (event instanceof BlockStart s) {
+                    starts.put(s.blockId(), s.timestamp());
+                } else if (event instanceof BlockEnd e) {
+                    ends.put(e.blockId(), e.endData());
+                }
+            }
+            try {
+                pushExecutor.execute(destination.flushHandler(), logs, blocks, starts, ends);
+            } catch (Exception e) {
+                log.error("Destination {} failed to flush batch of {} events", destination.flushHandler(), batch.size(), e);
+            }
+            if (ownsEvents) {
+                VFLEventPool.release(logs, ends.values());
+                return;
+            }
+            List<Object> done = new ArrayList<>();
+            for (Object item : batch) {
+                if (item instanceof Shared shared && shared.done()) {
+                    done.add(shared.event);
+                }
+            }
+            recycle(done);
+        }
+
+        private static void recycle(List<Object> events) {
+            List<Log> logs = new ArrayList<>();
+            List<BlockEndData> ends = new ArrayList<>();
+            for (Object event : events) {
+                if (event instanceof Log l) {
+                    logs.add(l);
+                } else if (event instanceof BlockEnd e) {
+                    ends.add(e.endData());
+                }
+            }
+            VFLEventPool.release(logs, ends);
+        }
+    }
+}
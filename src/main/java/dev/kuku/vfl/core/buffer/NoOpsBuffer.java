@@ -1,6 +1,7 @@
 package dev.kuku.vfl.core.buffer;
 
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.dtos.BlockEndData;
 import dev.kuku.vfl.core.models.logs.Log;
 
@@ -36,12 +37,12 @@ public class NoOpsBuffer implements VFLBuffer {
     }
 
     @Override
-    public void pushLogStartToBuffer(String blockId, long timestamp) {
+    public void pushLogStartToBuffer(VFLId blockId, long timestamp) {
         // Do nothing
     }
 
     @Override
-    public void pushLogEndToBuffer(String blockId, BlockEndData endData) {
+    public void pushLogEndToBuffer(VFLId blockId, BlockEndData endData) {
         // Do nothing
     }
 
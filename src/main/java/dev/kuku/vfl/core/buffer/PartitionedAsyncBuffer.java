@@ -0,0 +1,363 @@
+package dev.kuku.vfl.core.buffer;
+
+import dev.kuku.vfl.core.buffer.abstracts.VFLBufferWithFlushHandlerBase;
+import dev.kuku.vfl.core.buffer.flushHandler.VFLFlushHandler;
+import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.dtos.ShutdownReport;
+import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
+import dev.kuku.vfl.core.models.logs.Log;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous {@link VFLBuffer} that shards events by trace across N independent partitions.
+ *
+ * <p>Every partition has its own in-memory batch and its own single-threaded flush worker.
+ * All events of one trace (its blocks, their starts, logs and ends) are routed to the same partition,
+ * so their flushes run strictly in submission order — a block is always pushed before its own logs,
+ * start and end, and a child block before or together with the sub-block start log of its parent that
+ * references it. Different traces land on different partitions and flush in parallel.</p>
+ *
+ * <h2>Routing</h2>
+ * Every event is hashed by the ID of its trace's root block: {@link Block#getTraceId()} for blocks and
+ * for starts and ends pushed with their block, {@link Log#getTraceId()} for logs. The key is carried on
+ * the event itself, so routing keeps no state, and a child created after its parent ended is routed
+ * like any other block.
+ *
+ * <p>Events that don't carry a trace (starts and ends pushed by block ID only, logs created without
+ * their block, blocks received from another service) are routed by their block ID instead. Their order
+ * relative to the rest of the trace is then not guaranteed, and the destination has to accept
+ * forward references, as it already does for traces that span services.</p>
+ *
+ * <p>Shutdown follows {@link AsyncBuffer#shutdown(Duration)}: one deadline for all partitions, after which
+ * unflushed data is counted as dropped, and pushes made once the shutdown has begun are rejected.</p>
+ *
+ * <p><b>Compared to {@link AsyncBuffer}:</b> a single {@code AsyncBuffer} either serializes all flushes
+ * (single-thread executor) or lets them race (thread pool), which can push a block's logs before the block.
+ * This buffer gives parallel throughput while keeping ordering correct for each trace.</p>
+ */
+@Slf4j
+public class PartitionedAsyncBuffer implements VFLBuffer {
+
+    private final Partition[] partitions;
+    private final VFLFlushHandler flushHandler;
+    private final ScheduledExecutorService periodicExecutor;
+    private final int flushTimeout;
+    /** Set when the shutdown begins; pushes are rejected from then on */
+    private volatile boolean closed = false;
+    /** Pushes that read {@link #closed} as false and may not have reached their partition yet */
+    private final AtomicInteger pendingPushes = new AtomicInteger();
+    private final AtomicLong rejectedItems = new AtomicLong();
+
+    /**
+     * @param partitionCount               number of partitions (and flush worker threads)
+     * @param bufferSize                   max number of buffered items per partition before automatic flush
+     * @param finalFlushTimeoutMillisecond max millis {@link #flush()} waits for all partitions to finish their flushes
+     * @param periodicFlushTimeMillisecond interval in millis to trigger periodic flushes of every partition
+     * @param flushHandler                 handler responsible for sending flushed data to destination
+     * @param periodicFlushExecutor        scheduled executor for periodic flush triggers
+     */
+    public PartitionedAsyncBuffer(int partitionCount,
+                                  int bufferSize,
+                                  int finalFlushTimeoutMillisecond,
+                                  int periodicFlushTimeMillisecond,
+                                  VFLFlushHandler flushHandler,
+                                  ScheduledExecutorService periodicFlushExecutor) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("partitionCount must be positive but was " + partitionCount);
+        }
+        this.flushHandler = flushHandler;
+        this.periodicExecutor = periodicFlushExecutor;
+        this.flushTimeout = finalFlushTimeoutMillisecond;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            int index = i;
+            partitions[i] = new Partition(bufferSize, flushHandler, Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "vfl-partition-flush-" + index);
+                t.setDaemon(true);
+                return t;
+            }));
+        }
+
+        periodicExecutor.scheduleWithFixedDelay(() -> {
+                    for (Partition partition : partitions) {
+                        partition.drain();
+                    }
+                },
+                periodicFlushTimeMillisecond,
+                periodicFlushTimeMillisecond,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void pushLogToBuffer(Log log) {
+        pendingPushes.incrementAndGet();
+        try {
+            if (accepting()) {
+                partitionOf(log.getTraceId()).pushLogToBuffer(log);
+            }
+        } finally {
+            pendingPushes.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void pushBlockToBuffer(Block block) {
+        pendingPushes.incrementAndGet();
+        try {
+            if (accepting()) {
+                partitionOf(block.getTraceId()).pushBlockToBuffer(block);
+            }
+        } finally {
+            pendingPushes.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void pushLogStartToBuffer(VFLId blockId, long timestamp) {
+        pendingPushes.incrementAndGet();
+        try {
+            if (accepting()) {
+                partitionOf(blockId).pushLogStartToBuffer(blockId, timestamp);
+            }
+        } finally {
+            pendingPushes.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void pushLogEndToBuffer(VFLId blockId, BlockEndData endData) {
+        pendingPushes.incrementAndGet();
+        try {
+            if (accepting()) {
+                partitionOf(blockId).pushLogEndToBuffer(blockId, endData);
+            }
+        } finally {
+            pendingPushes.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void pushLogStartToBuffer(Block block, long timestamp) {
+        pendingPushes.incrementAndGet();
+        try {
+            if (accepting()) {
+                partitionOf(block.getTraceId()).pushLogStartToBuffer(block.getId(), timestamp);
+            }
+        } finally {
+            pendingPushes.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void pushLogEndToBuffer(Block block, BlockEndData endData) {
+        pendingPushes.incrementAndGet();
+        try {
+            if (accepting()) {
+                partitionOf(block.getTraceId()).pushLogEndToBuffer(block.getId(), endData);
+            }
+        } finally {
+            pendingPushes.decrementAndGet();
+        }
+    }
+
+    /**
+     * Hands each partition's buffered data to its worker and waits up to the configured flush timeout for
+     * the flushes in flight to complete. Nothing is shut down or closed, so this can be called at the end
+     * of every root block. A flush that does not complete in time is logged as a warning; this method never throws.
+     */
+    @Override
+    public void flush() {
+        for (Partition partition : partitions) {
+            partition.drain();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushTimeout);
+        try {
+            for (Partition partition : partitions) {
+                while (partition.inFlightItems.get() > 0) {
+                    if (deadline - System.nanoTime() <= 0) {
+                        log.warn("Flush did not complete within {}ms, {} items still in flight in a partition",
+                                flushTimeout, partition.inFlightItems.get());
+                        return;
+                    }
+                    Thread.sleep(1);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Drains every partition within one overall deadline, in this order:
+     * <ol>
+     *   <li>Stops periodic flushes and hands each partition's buffered data to its worker</li>
+     *   <li>Stops the workers and waits for their flushes; flushes still queued or running at the
+     *       deadline are cancelled and counted as dropped</li>
+     *   <li>Flushes, synchronously, anything that was being pushed when the shutdown began, or discards it
+     *       if the deadline has already passed</li>
+     *   <li>Lets the flush handler drain what it still holds with the remaining time, then closes it once</li>
+     * </ol>
+     */
+    @Override
+    public synchronized ShutdownReport shutdown(Duration timeout) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        if (closed) {
+            return ShutdownReport.clean(0);
+        }
+        closed = true;
+
+        // 1. Buffered data
+        periodicExecutor.shutdown();
+        for (Partition partition : partitions) {
+            partition.drain();
+            partition.worker.shutdown();
+        }
+
+        // 2. In-flight flushes
+        boolean deadlineExceeded = false;
+        try {
+            for (Partition partition : partitions) {
+                if (!partition.worker.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                    deadlineExceeded = true;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deadlineExceeded = true;
+        }
+        long droppedInFlight = 0;
+        if (deadlineExceeded) {
+            for (Partition partition : partitions) {
+                partition.worker.shutdownNow();
+                droppedInFlight += partition.inFlightItems.get();
+            }
+            log.warn("Partition workers did not finish within {}ms, {} in-flight items dropped",
+                    timeout.toMillis(), droppedInFlight);
+        }
+
+        // 3. Pushes that started before the shutdown; the workers are shut down so these flushes run here
+        while (pendingPushes.get() > 0 && deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+        long droppedBuffered = 0;
+        for (Partition partition : partitions) {
+            if (deadline - System.nanoTime() > 0) {
+                partition.drain();
+            } else {
+                droppedBuffered += partition.discard();
+            }
+        }
+
+        // 4. Retries held by the flush handler
+        long droppedRetries = 0;
+        try {
+            droppedRetries = flushHandler.drainAndClose(Duration.ofNanos(Math.max(deadline - System.nanoTime(), 0)));
+        } catch (Exception e) {
+            log.error("Failed to close flush handler {}", flushHandler, e);
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.debug("All {} partitions drained in {}ms", partitions.length, elapsedMillis);
+        return new ShutdownReport(elapsedMillis, deadlineExceeded || droppedBuffered > 0,
+                droppedBuffered, droppedInFlight, droppedRetries, rejectedItems.get());
+    }
+
+    /**
+     * @return true if the buffer still takes pushes; otherwise counts the rejected one
+     */
+    private boolean accepting() {
+        if (!closed) {
+            return true;
+        }
+        long count = rejectedItems.incrementAndGet();
+        if (count == 1 || count % 1000 == 0) {
+            log.warn("Rejected {} events pushed after shutdown of {}", count, this);
+        }
+        return false;
+    }
+
+    private Partition partitionOf(VFLId traceId) {
+        return partitions[Math.floorMod(traceId == null ? 0 : traceId.hashCode(), partitions.length)];
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionedAsyncBuffer{" +
+                "partitions=" + partitions.length +
+                ", flushTimeout=" + flushTimeout +
+                ", flushHandler=" + flushHandler +
+                '}';
+    }
+
+    /**
+     * One shard: an in-memory batch flushed by a dedicated single-thread worker so
+     * successive flushes of the same shard never overtake each other.
+     */
+    private static final class Partition extends VFLBufferWithFlushHandlerBase {
+        private final ExecutorService worker;
+        /** Items handed to the worker whose flush has not completed yet */
+        private final AtomicLong inFlightItems = new AtomicLong();
+
+        Partition(int bufferSize, VFLFlushHandler flushHandler, ExecutorService worker) {
+            super(bufferSize, flushHandler);
+            this.worker = worker;
+        }
+
+        void drain() {
+            flushAll();
+        }
+
+        int discard() {
+            return discardAll();
+        }
+
+        /**
+         * Taking the snapshot and handing it to the worker happens under the partition's monitor,
+         * so two concurrent flushes are always queued in the order their snapshots were taken.
+         */
+        @Override
+        protected synchronized void flushAll() {
+            super.flushAll();
+        }
+
+        @Override
+        protected void executeFlushAll(List<Log> logs,
+                                       List<Block> blocks,
+                                       Map<VFLId, Long> blockStarts,
+                                       Map<VFLId, BlockEndData> blockEnds) {
+            if (worker.isShutdown()) {
+                performOrderedFlush(logs, blocks, blockStarts, blockEnds);
+                return;
+            }
+            long itemCount = logs.size() + blocks.size() + blockStarts.size() + blockEnds.size();
+            inFlightItems.addAndGet(itemCount);
+            try {
+                worker.execute(() -> {
+                    try {
+                        performOrderedFlush(logs, blocks, blockStarts, blockEnds);
+                    } finally {
+                        inFlightItems.addAndGet(-itemCount);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlightItems.addAndGet(-itemCount);
+                log.warn("Partition worker rejected flush (likely shutting down), performing synchronous flush", e);
+                performOrderedFlush(logs, blocks, blockStarts, blockEnds);
+            }
+        }
+    }
+}
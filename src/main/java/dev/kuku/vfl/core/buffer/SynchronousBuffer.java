@@ -3,6 +3,7 @@ package dev.kuku.vfl.core.buffer;
 import dev.kuku.vfl.core.buffer.abstracts.VFLBufferWithFlushHandlerBase;
 import dev.kuku.vfl.core.buffer.flushHandler.VFLFlushHandler;
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.dtos.BlockEndData;
 import dev.kuku.vfl.core.models.logs.Log;
 
@@ -56,8 +57,8 @@ public class SynchronousBuffer extends VFLBufferWithFlushHandlerBase {
     @Override
     protected void executeFlushAll(List<Log> logs,
                                    List<Block> blocks,
-                                   Map<String, Long> blockStarts,
-                                   Map<String, BlockEndData> blockEnds) {
+                                   Map<VFLId, Long> blockStarts,
+                                   Map<VFLId, BlockEndData> blockEnds) {
         performOrderedFlush(logs, blocks, blockStarts, blockEnds);
     }
 }
@@ -1,9 +1,13 @@
 package dev.kuku.vfl.core.buffer;
 
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.dtos.ShutdownReport;
 import dev.kuku.vfl.core.models.logs.Log;
 
+import java.time.Duration;
+
 /**
  * Abstraction for buffering Visual Flow Logger (VFL) trace data.
  *
@@ -57,7 +61,7 @@ public interface VFLBuffer {
      * @param blockId   ID of the block being started
      * @param timestamp epoch millis of the start time
      */
-    void pushLogStartToBuffer(String blockId, long timestamp);
+    void pushLogStartToBuffer(VFLId blockId, long timestamp);
 
     /**
      * Buffer the "end" event for an existing block.
@@ -68,14 +72,51 @@ public interface VFLBuffer {
      * @param blockId  ID of the block being ended
      * @param endData  contains timestamp and optional end message
      */
-    void pushLogEndToBuffer(String blockId, BlockEndData endData);
+    void pushLogEndToBuffer(VFLId blockId, BlockEndData endData);
+
+    /**
+     * Same as {@link #pushLogStartToBuffer(VFLId, long)}, with the block itself so buffers can also see
+     * its {@linkplain Block#getTraceId() trace}. VFL always calls this variant.
+     *
+     * <p>The default forwards the block's ID; buffers that route or forward events by trace override it.</p>
+     */
+    default void pushLogStartToBuffer(Block block, long timestamp) {
+        pushLogStartToBuffer(block.getId(), timestamp);
+    }
+
+    /**
+     * Same as {@link #pushLogEndToBuffer(VFLId, BlockEndData)}, with the block itself so buffers can also see
+     * its {@linkplain Block#getTraceId() trace}. VFL always calls this variant.
+     *
+     * <p>The default forwards the block's ID; buffers that route or forward events by trace override it.</p>
+     */
+    default void pushLogEndToBuffer(Block block, BlockEndData endData) {
+        pushLogEndToBuffer(block.getId(), endData);
+    }
 
     /**
-     * Flush all pending blocks/logs and release resources.
+     * Flush all pending blocks/logs.
      *
-     * <p>Called at the end of a root block or during shutdown.
+     * <p>Called at the end of every root block, so the buffer must keep accepting
+     * and delivering events afterwards; resources are released by {@link #shutdown(Duration)}.
      * Implementations should ensure all buffered data is safely persisted
      * before returning.
      */
     void flush();
+
+    /**
+     * Flush all pending data and release resources within the given deadline.
+     *
+     * <p>Used by {@link VFLShutdownCoordinator} when the JVM exits. Must not throw; anything that could
+     * not be delivered in time is reported in the returned {@link ShutdownReport}.
+     * The default implementation simply calls {@link #flush()} and cannot enforce the deadline.
+     *
+     * @param timeout overall time budget for the shutdown
+     * @return what was drained and what had to be dropped
+     */
+    default ShutdownReport shutdown(Duration timeout) {
+        long start = System.nanoTime();
+        flush();
+        return ShutdownReport.clean(Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
 }
@@ -0,0 +1,85 @@
+package dev.kuku.vfl.core.buffer;
+
+import dev.kuku.vfl.core.dtos.ShutdownReport;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shuts down registered {@link VFLBuffer}s when the JVM exits.
+ *
+ * <p>The first {@link #register(VFLBuffer)} installs a JVM shutdown hook. When it fires, every registered
+ * buffer is shut down via {@link VFLBuffer#shutdown(Duration)}, in registration order, sharing a single
+ * overall deadline (see {@link #setDeadline(Duration)}). Each buffer's {@link ShutdownReport} is logged,
+ * so anything that had to be dropped is visible in the application's last log lines.</p>
+ *
+ * <p>{@link #shutdownAll()} can also be called explicitly, e.g. from a framework's own shutdown callback;
+ * buffers are only shut down once.</p>
+ */
+@Slf4j
+public final class VFLShutdownCoordinator {
+
+    private static final CopyOnWriteArrayList<VFLBuffer> buffers = new CopyOnWriteArrayList<>();
+    private static final AtomicBoolean hookInstalled = new AtomicBoolean(false);
+    private static volatile Duration deadline = Duration.ofSeconds(10);
+
+    private VFLShutdownCoordinator() {
+    }
+
+    /**
+     * Registers a buffer to be shut down on JVM exit. Registering the same buffer twice has no effect.
+     */
+    public static void register(VFLBuffer buffer) {
+        if (hookInstalled.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(VFLShutdownCoordinator::shutdownAll, "vfl-shutdown"));
+        }
+        buffers.addIfAbsent(buffer);
+    }
+
+    public static void unregister(VFLBuffer buffer) {
+        buffers.remove(buffer);
+    }
+
+    /**
+     * Sets the overall time budget shared by all registered buffers on shutdown. Defaults to 10 seconds.
+     */
+    public static void setDeadline(Duration shutdownDeadline) {
+        deadline = shutdownDeadline;
+    }
+
+    /**
+     * Shuts down every registered buffer within the configured deadline and unregisters it.
+     * Never throws; failures are logged and the remaining buffers are still shut down.
+     *
+     * @return one report per buffer that was shut down
+     */
+    public static List<ShutdownReport> shutdownAll() {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        List<ShutdownReport> reports = new ArrayList<>();
+        for (VFLBuffer buffer : buffers) {
+            if (!buffers.remove(buffer)) {
+                continue; // already shut down by a concurrent call
+            }
+            Duration remaining = Duration.ofNanos(Math.max(deadlineNanos - System.nanoTime(), 0));
+            try {
+                ShutdownReport report = buffer.shutdown(remaining);
+                reports.add(report);
+                if (report.isClean()) {
+                    log.debug("[VFL] {} shut down cleanly in {}ms", buffer, report.elapsedMillis());
+                } else {
+                    log.warn("[VFL] {} shut down with data loss: {}", buffer, report);
+                }
+            } catch (Exception e) {
+                log.error("[VFL] Failed to shut down {}", buffer, e);
+            }
+        }
+        log.debug("[VFL] Shutdown finished, {}ms of {}ms budget left",
+                TimeUnit.NANOSECONDS.toMillis(Math.max(deadlineNanos - System.nanoTime(), 0)), deadline.toMillis());
+        return reports;
+    }
+}
@@ -2,6 +2,7 @@ package dev.kuku.vfl.core.buffer.abstracts;
 
 import dev.kuku.vfl.core.buffer.VFLBuffer;
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.dtos.BlockEndData;
 import dev.kuku.vfl.core.models.logs.Log;
 
@@ -51,8 +52,8 @@ import java.util.concurrent.locks.ReentrantLock;
  *     @Override
  *     protected void onFlushAll(List<Log> logs,
  *                               List<Block> blocks,
- *                               Map<String, Long> blockStarts,
- *                               Map<String, BlockEndData> blockEnds) {
+ *                               Map<VFLId, Long> blockStarts,
+ *                               Map<VFLId, BlockEndData> blockEnds) {
  *         logs.forEach(l -> System.out.println("LOG: " + l));
  *         blocks.forEach(b -> System.out.println("BLOCK: " + b));
  *         blockStarts.forEach((id, ts) -> System.out.println("START: " + id + " -> " + ts));
@@ -72,8 +73,8 @@ public abstract class VFLBufferBase implements VFLBuffer {
     private final ReentrantLock lock = new ReentrantLock();
     private final List<Log> logs2Flush;
     private final List<Block> blocks2Flush;
-    private final Map<String, Long> blockStarts2Flush;
-    private final Map<String, BlockEndData> blockEnds2Flush;
+    private final Map<VFLId, Long> blockStarts2Flush;
+    private final Map<VFLId, BlockEndData> blockEnds2Flush;
 
     /**
      * @param bufferSize maximum number of total items (logs + blocks + starts + ends)
@@ -110,7 +111,7 @@ public abstract class VFLBufferBase implements VFLBuffer {
     }
 
     @Override
-    public void pushLogStartToBuffer(String blockId, long timestamp) {
+    public void pushLogStartToBuffer(VFLId blockId, long timestamp) {
         lock.lock();
         try {
             this.blockStarts2Flush.put(blockId, timestamp);
@@ -121,7 +122,7 @@ public abstract class VFLBufferBase implements VFLBuffer {
     }
 
     @Override
-    public void pushLogEndToBuffer(String blockId, BlockEndData endData) {
+    public void pushLogEndToBuffer(VFLId blockId, BlockEndData endData) {
         lock.lock();
         try {
             blockEnds2Flush.put(blockId, endData);
@@ -160,8 +161,8 @@ public abstract class VFLBufferBase implements VFLBuffer {
     protected void flushAll() {
         List<Log> logsToFlush;
         List<Block> blocksToFlush;
-        Map<String, Long> blockStartsToFlush;
-        Map<String, BlockEndData> blockEndsToFlush;
+        Map<VFLId, Long> blockStartsToFlush;
+        Map<VFLId, BlockEndData> blockEndsToFlush;
 
         lock.lock();
         try {
@@ -182,6 +183,28 @@ public abstract class VFLBufferBase implements VFLBuffer {
         onFlushAll(logsToFlush, blocksToFlush, blockStartsToFlush, blockEndsToFlush);
     }
 
+    /**
+     * Clears all pending entries without flushing them.
+     *
+     * @return number of discarded items
+     */
+    protected int discardAll() {
+        lock.lock();
+        try {
+            int count = logs2Flush.size()
+                    + blocks2Flush.size()
+                    + blockStarts2Flush.size()
+                    + blockEnds2Flush.size();
+            logs2Flush.clear();
+            blocks2Flush.clear();
+            blockStarts2Flush.clear();
+            blockEnds2Flush.clear();
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     @Override
     public void flush() {
         flushAll();
@@ -200,6 +223,6 @@ public abstract class VFLBufferBase implements VFLBuffer {
      */
     protected abstract void onFlushAll(List<Log> logs,
                                        List<Block> blocks,
-                                       Map<String, Long> blockStarts,
-                                       Map<String, BlockEndData> blockEnds);
+                                       Map<VFLId, Long> blockStarts,
+                                       Map<VFLId, BlockEndData> blockEnds);
 }
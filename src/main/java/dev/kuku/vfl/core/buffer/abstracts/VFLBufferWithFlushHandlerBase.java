@@ -1,12 +1,20 @@
 package dev.kuku.vfl.core.buffer.abstracts;
 
+import dev.kuku.vfl.core.buffer.flushHandler.OrderedPushExecutor;
+import dev.kuku.vfl.core.buffer.flushHandler.PushType;
 import dev.kuku.vfl.core.buffer.flushHandler.VFLFlushHandler;
+import dev.kuku.vfl.core.helpers.pool.VFLEventPool;
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.dtos.ShutdownReport;
 import dev.kuku.vfl.core.models.logs.Log;
+import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract extension of {@link VFLBufferBase} that integrates with a {@link VFLFlushHandler}.
@@ -32,8 +40,8 @@ import java.util.Map;
  *           <li>Log entries (messages)</li>
  *       </ol>
  *   </li>
- *   <li>{@link #flush()} closes the flush handler after flushing remaining data —
- *       suitable for shutdown hooks.</li>
+ *   <li>{@link #flush()} only flushes; {@link #shutdown(Duration)} also drains and closes the flush
+ *       handler after flushing remaining data — suitable for shutdown hooks.</li>
  * </ul>
  *
  * <h2>Typical Usage:</h2>
@@ -46,26 +54,40 @@ import java.util.Map;
  *     @Override
  *     protected void executeFlushAll(List<Log> logs,
  *                                     List<Block> blocks,
- *                                     Map<String, Long> blockStarts,
- *                                     Map<String, BlockEndData> blockEnds) {
+ *                                     Map<VFLId, Long> blockStarts,
+ *                                     Map<VFLId, BlockEndData> blockEnds) {
  *         // Example: send in another thread
  *         executor.submit(() -> performOrderedFlush(logs, blocks, blockStarts, blockEnds));
  *     }
  * }
  * }</pre>
  */
+@Slf4j
 public abstract class VFLBufferWithFlushHandlerBase extends VFLBufferBase {
 
     /** Responsible for pushing buffered data to the destination (e.g., server, DB, queue) */
     protected final VFLFlushHandler flushHandler;
 
+    /** Dispatches the individual pushes of a flush, running independent ones concurrently */
+    protected final OrderedPushExecutor pushExecutor;
+
     /**
      * @param bufferSize   maximum combined items before triggering automatic flush
      * @param flushHandler handler that knows how to send the batched data to its destination
      */
     public VFLBufferWithFlushHandlerBase(int bufferSize, VFLFlushHandler flushHandler) {
+        this(bufferSize, flushHandler, OrderedPushExecutor.DEFAULT);
+    }
+
+    /**
+     * @param bufferSize   maximum combined items before triggering automatic flush
+     * @param flushHandler handler that knows how to send the batched data to its destination
+     * @param pushExecutor executor used to run the pushes of a single flush
+     */
+    public VFLBufferWithFlushHandlerBase(int bufferSize, VFLFlushHandler flushHandler, OrderedPushExecutor pushExecutor) {
         super(bufferSize);
         this.flushHandler = flushHandler;
+        this.pushExecutor = pushExecutor;
     }
 
     /**
@@ -75,19 +97,28 @@ public abstract class VFLBufferWithFlushHandlerBase extends VFLBufferBase {
     @Override
     protected final void onFlushAll(List<Log> logs,
                                     List<Block> blocks,
-                                    Map<String, Long> blockStarts,
-                                    Map<String, BlockEndData> blockEnds) {
+                                    Map<VFLId, Long> blockStarts,
+                                    Map<VFLId, BlockEndData> blockEnds) {
         executeFlushAll(logs, blocks, blockStarts, blockEnds);
     }
 
     /**
-     * Flush remaining data and close the flush handler.
-     * <p>Intended to be called during graceful shutdown.</p>
+     * Flush remaining data, then let the flush handler drain what it still holds (e.g., pending retries)
+     * with the remaining time and close it.
+     * <p>Intended to be called during graceful shutdown; {@link #flush()} leaves the handler open.</p>
      */
     @Override
-    public void flush() {
-        super.flush(); // Flush any pending batches
-        flushHandler.closeFlushHandler(); // Cleanup flush handler resources
+    public ShutdownReport shutdown(Duration timeout) {
+        long start = System.nanoTime();
+        flush();
+        long droppedRetries = 0;
+        try {
+            droppedRetries = flushHandler.drainAndClose(Duration.ofNanos(Math.max(start + timeout.toNanos() - System.nanoTime(), 0)));
+        } catch (Exception e) {
+            log.error("Failed to close flush handler {}", flushHandler, e);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new ShutdownReport(elapsedMillis, false, 0, 0, droppedRetries, 0);
     }
 
     /**
@@ -100,8 +131,8 @@ public abstract class VFLBufferWithFlushHandlerBase extends VFLBufferBase {
      */
     protected abstract void executeFlushAll(List<Log> logs,
                                             List<Block> blocks,
-                                            Map<String, Long> blockStarts,
-                                            Map<String, BlockEndData> blockEnds);
+                                            Map<VFLId, Long> blockStarts,
+                                            Map<VFLId, BlockEndData> blockEnds);
 
     /**
      * Convenience method to flush in correct dependency order:
@@ -111,24 +142,23 @@ public abstract class VFLBufferWithFlushHandlerBase extends VFLBufferBase {
      *     <li>Block ends → mark when blocks finished</li>
      *     <li>Logs → messages linked to existing blocks</li>
      * </ol>
+     * Only the ordering declared by {@link VFLFlushHandler#pushDependencies(PushType)} is enforced;
+     * pushes that don't depend on each other are sent concurrently by the {@link #pushExecutor}.
+     * Afterwards, pooled events are recycled if {@link VFLEventPool} is enabled and the handler doesn't retain them.
      * Subclasses can call this from {@link #executeFlushAll(List, List, Map, Map)}
      * to enforce ordering.
+     *
+     * @return result of each push that was attempted
      */
-    protected final void performOrderedFlush(List<Log> logs,
-                                             List<Block> blocks,
-                                             Map<String, Long> blockStarts,
-                                             Map<String, BlockEndData> blockEnds) {
-        if (!blocks.isEmpty()) {
-            flushHandler.pushBlocksToServer(blocks);
-        }
-        if (!blockStarts.isEmpty()) {
-            flushHandler.pushBlockStartsToServer(blockStarts);
-        }
-        if (!blockEnds.isEmpty()) {
-            flushHandler.pushBlockEndsToServer(blockEnds);
-        }
-        if (!logs.isEmpty()) {
-            flushHandler.pushLogsToServer(logs);
+    protected final Map<PushType, Boolean> performOrderedFlush(List<Log> logs,
+                                                               List<Block> blocks,
+                                                               Map<VFLId, Long> blockStarts,
+                                                               Map<VFLId, BlockEndData> blockEnds) {
+        Map<PushType, Boolean> results = pushExecutor.execute(flushHandler, logs, blocks, blockStarts, blockEnds);
+        if (VFLEventPool.isEnabled() && !flushHandler.retainsEvents()) {
+            // The handler is done with this snapshot and nothing else references it
+            VFLEventPool.release(logs, blockEnds.values());
         }
+        return results;
     }
 }
@@ -0,0 +1,109 @@
+package dev.kuku.vfl.core.buffer.flushHandler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Minimal three-state circuit breaker guarding calls to a remote destination.
+ *
+ * <ul>
+ *   <li><b>CLOSED</b> — calls pass through; {@code failureThreshold} consecutive failures open the circuit</li>
+ *   <li><b>OPEN</b> — calls are rejected immediately until {@code openDuration} has elapsed</li>
+ *   <li><b>HALF_OPEN</b> — a single trial call is let through; success closes the circuit,
+ *       failure opens it again for another {@code openDuration}</li>
+ * </ul>
+ *
+ * <p>Callers must report the outcome of every permitted call via {@link #onSuccess()} or {@link #onFailure()},
+ * or via {@link #releaseTrial()} if the call never reached the destination.</p>
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAtNanos = 0;
+
+    /**
+     * @param name             name used in log messages
+     * @param failureThreshold consecutive failures that open the circuit
+     * @param openDuration     how long the circuit stays open before a trial call is allowed
+     */
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * @return true if a call may be made now; false if the circuit is open (fast-fail)
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAtNanos >= openDurationNanos) {
+                    state = State.HALF_OPEN;
+                    log.debug("Circuit {} half-open, allowing a trial call", name);
+                    return true;
+                }
+                return false;
+            default:
+                // A trial call is already in flight
+                return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit {} closed again after successful call", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+            log.warn("Circuit {} opened after {} consecutive failures", name, consecutiveFailures);
+        }
+    }
+
+    /**
+     * Reports a permitted call that failed before reaching the destination (e.g., the payload could not be
+     * serialized), so it says nothing about the destination's health. A trial slot is handed back and the
+     * next call may try again right away; a closed circuit is left as it is.
+     */
+    public synchronized void releaseTrial() {
+        if (state == State.HALF_OPEN) {
+            // openedAtNanos is kept, so the open duration has already elapsed for the next tryAcquire()
+            state = State.OPEN;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker{" +
+                "name='" + name + '\'' +
+                ", state=" + state +
+                ", consecutiveFailures=" + consecutiveFailures +
+                '}';
+    }
+}
@@ -3,7 +3,9 @@ package dev.kuku.vfl.core.buffer.flushHandler;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.kuku.vfl.core.models.Attributes;
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.dtos.BlockEndData;
 import dev.kuku.vfl.core.models.logs.Log;
 import dev.kuku.vfl.core.models.logs.SubBlockStartLog;
@@ -29,10 +31,10 @@ public class NestedJsonFlushHandler implements VFLFlushHandler {
     private final DateTimeFormatter timeFormatter;
 
     // Data storage
-    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
-    private final Map<String, Log> logs = new ConcurrentHashMap<>();
-    private final Map<String, Long> blockStarts = new ConcurrentHashMap<>();
-    private final Map<String, BlockEndData> blockEnds = new ConcurrentHashMap<>();
+    private final Map<VFLId, Block> blocks = new ConcurrentHashMap<>();
+    private final Map<VFLId, Log> logs = new ConcurrentHashMap<>();
+    private final Map<VFLId, Long> blockStarts = new ConcurrentHashMap<>();
+    private final Map<VFLId, BlockEndData> blockEnds = new ConcurrentHashMap<>();
 
     public NestedJsonFlushHandler(String outputFilePath) {
         this.outputFilePath = outputFilePath;
@@ -64,7 +66,7 @@ public class NestedJsonFlushHandler implements VFLFlushHandler {
     }
 
     @Override
-    public boolean pushBlockStartsToServer(Map<String, Long> blockStarts) {
+    public boolean pushBlockStartsToServer(Map<VFLId, Long> blockStarts) {
         if (blockStarts != null) {
             this.blockStarts.putAll(blockStarts);
         }
@@ -72,7 +74,7 @@ public class NestedJsonFlushHandler implements VFLFlushHandler {
     }
 
     @Override
-    public boolean pushBlockEndsToServer(Map<String, BlockEndData> blockEnds) {
+    public boolean pushBlockEndsToServer(Map<VFLId, BlockEndData> blockEnds) {
         if (blockEnds != null) {
             this.blockEnds.putAll(blockEnds);
         }
@@ -109,6 +111,7 @@ public class NestedJsonFlushHandler implements VFLFlushHandler {
         blockJson.blockId = block.getId();
         blockJson.parentBlockId = block.getParentBlockId();
         blockJson.name = block.getBlockName();
+        blockJson.attributes = block.getAttributes();
 
         // Format times and calculate duration
         Long startTime = blockStarts.get(block.getId());
@@ -124,8 +127,7 @@ public class NestedJsonFlushHandler implements VFLFlushHandler {
 
             // Calculate duration if both start and end times are available
             if (startTime != null) {
-                long duration = blockEnd.getEndTime() - startTime;
-                blockJson.duration = formatDuration(duration);
+                blockJson.duration = formatDuration(startTime, blockEnd);
             }
         }
 
@@ -135,7 +137,7 @@ public class NestedJsonFlushHandler implements VFLFlushHandler {
         return blockJson;
     }
 
-    private List<LogJson> buildLogsChain(String blockId, String parentLogId) {
+    private List<LogJson> buildLogsChain(VFLId blockId, VFLId parentLogId) {
         // Get all logs for this block with the specified parent log ID
         List<Log> blockLogs = logs.values().stream()
                 .filter(log -> Objects.equals(log.getBlockId(), blockId))
@@ -151,18 +153,18 @@ public class NestedJsonFlushHandler implements VFLFlushHandler {
             logJson.type = log.getLogType().toString();
             logJson.message = log.getMessage();
             logJson.timestamp = formatTime(log.getTimestamp());
+            logJson.attributes = log.getAttributes();
 
             // Handle SubBlockStartLog special case
             if (log instanceof SubBlockStartLog subBlockLog) {
-                String referencedBlockId = subBlockLog.getReferencedBlockId();
+                VFLId referencedBlockId = subBlockLog.getReferencedBlockId();
 
                 // Add duration and end message for sub-block logs
                 Long subBlockStartTime = blockStarts.get(referencedBlockId);
                 BlockEndData subBlockEnd = blockEnds.get(referencedBlockId);
 
                 if (subBlockStartTime != null && subBlockEnd != null) {
-                    long duration = subBlockEnd.getEndTime() - subBlockStartTime;
-                    logJson.duration = formatDuration(duration);
+                    logJson.duration = formatDuration(subBlockStartTime, subBlockEnd);
                     logJson.endMessage = subBlockEnd.getEndMessage();
                 }
 
@@ -189,6 +191,17 @@ public class NestedJsonFlushHandler implements VFLFlushHandler {
         return timeFormatter.format(Instant.ofEpochMilli(timestampMillis));
     }
 
+    /**
+     * Uses the precise nanosecond duration for sub-second blocks when available.
+     */
+    private String formatDuration(long startTime, BlockEndData blockEnd) {
+        long nanos = blockEnd.getDurationNanos();
+        if (nanos > 0 && nanos < 1_000_000_000L) {
+            return String.format("%.3fms", nanos / 1_000_000.0);
+        }
+        return formatDuration(blockEnd.getEndTime() - startTime);
+    }
+
     private String formatDuration(long durationMillis) {
         if (durationMillis < 1000) {
             return durationMillis + "ms";
@@ -221,9 +234,10 @@ public class NestedJsonFlushHandler implements VFLFlushHandler {
 
     // JSON data classes
     private static class BlockJson {
-        public String blockId;
-        public String parentBlockId;
+        public VFLId blockId;
+        public VFLId parentBlockId;
         public String name;
+        public Attributes attributes;
         public String startTime;
         public String endTime;
         public String duration;
@@ -232,10 +246,11 @@ public class NestedJsonFlushHandler implements VFLFlushHandler {
     }
 
     private static class LogJson {
-        public String id;
+        public VFLId id;
         public String type;
         public String message;
         public String timestamp;
+        public Attributes attributes;
         public String duration; // Only for SubBlockStartLog
         public String endMessage; // Only for SubBlockStartLog
         public BlockJson referencedBlock; // Only for SubBlockStartLog
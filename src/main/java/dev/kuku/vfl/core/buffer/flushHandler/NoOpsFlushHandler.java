@@ -2,6 +2,7 @@ package dev.kuku.vfl.core.buffer.flushHandler;
 
 import dev.kuku.vfl.core.dtos.BlockEndData;
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.models.logs.Log;
 
 import java.util.List;
@@ -19,15 +20,20 @@ public class NoOpsFlushHandler implements VFLFlushHandler {
     }
 
     @Override
-    public boolean pushBlockStartsToServer(Map<String, Long> blockStarts) {
+    public boolean pushBlockStartsToServer(Map<VFLId, Long> blockStarts) {
         return true;
     }
 
     @Override
-    public boolean pushBlockEndsToServer(Map<String, BlockEndData> blockEnds) {
+    public boolean pushBlockEndsToServer(Map<VFLId, BlockEndData> blockEnds) {
         return true;
     }
 
+    @Override
+    public boolean retainsEvents() {
+        return false;
+    }
+
     @Override
     public void closeFlushHandler() {
 
@@ -0,0 +1,186 @@
+package dev.kuku.vfl.core.buffer.flushHandler;
+
+import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.BlockLifecycle;
+import dev.kuku.vfl.core.models.VFLId;
+import dev.kuku.vfl.core.models.logs.Log;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Runs the four pushes of a flush against a {@link VFLFlushHandler}, honouring only the
+ * ordering constraints the handler declares via {@link VFLFlushHandler#pushDependencies(PushType)}.
+ *
+ * <p>Pushes with no pending dependency are dispatched concurrently on the configured executor
+ * (virtual threads by default), so a handler that only needs "blocks before everything else"
+ * pays roughly two round trips per flush instead of four. When the declared dependencies form a
+ * strict chain (the default for handlers that don't override anything) the pushes are run inline
+ * on the calling thread, exactly like the original sequential flush.</p>
+ *
+ * <p>Blocks are pushed as {@link BlockLifecycle}s: a block whose start and/or end event is in the
+ * same batch is merged with them, and only the starts and ends of blocks flushed earlier are
+ * pushed separately.</p>
+ *
+ * <p>Empty batches are skipped and treated as already completed. A push that returns {@code false} or
+ * throws is logged and reported as failed in the returned results. Pushes that
+ * {@linkplain PushType#references() reference} it and wait for it are not attempted, since they would
+ * reference IDs the destination never received; they are reported as failed too. Every other push still
+ * runs, even if it was ordered after the failed one, so a failed block start does not cost the ends and logs. Wrap the handler in a {@link RetryingFlushHandler} to have
+ * failed pushes retried.</p>
+ */
+@Slf4j
+public class OrderedPushExecutor {
+
+    /**
+     * Shared executor that runs independent pushes on virtual threads.
+     */
+    public static final OrderedPushExecutor DEFAULT = new OrderedPushExecutor(Executors.newVirtualThreadPerTaskExecutor());
+
+    private final Executor executor;
+
+    /**
+     * @param executor executor used to run pushes that can proceed concurrently
+     */
+    public OrderedPushExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Pushes the given batch to the handler and waits until every push has finished.
+     *
+     * @return result of each push that was attempted, keyed by push type
+     */
+    public Map<PushType, Boolean> execute(VFLFlushHandler handler,
+                                          List<Log> logs,
+                                          List<Block> blocks,
+                                          Map<VFLId, Long> blockStarts,
+                                          Map<VFLId, BlockEndData> blockEnds) {
+        Map<VFLId, Long> remainingStarts = new HashMap<>(blockStarts);
+        Map<VFLId, BlockEndData> remainingEnds = new HashMap<>(blockEnds);
+        List<BlockLifecycle> lifecycles = mergeLifecycles(blocks, remainingStarts, remainingEnds);
+
+        Map<PushType, BooleanSupplier> pushes = new EnumMap<>(PushType.class);
+        if (!lifecycles.isEmpty()) {
+            pushes.put(PushType.BLOCKS, () -> handler.pushBlockLifecyclesToServer(lifecycles));
+        }
+        if (!remainingStarts.isEmpty()) {
+            pushes.put(PushType.BLOCK_STARTS, () -> handler.pushBlockStartsToServer(remainingStarts));
+        }
+        if (!remainingEnds.isEmpty()) {
+            pushes.put(PushType.BLOCK_ENDS, () -> handler.pushBlockEndsToServer(remainingEnds));
+        }
+        if (!logs.isEmpty()) {
+            pushes.put(PushType.LOGS, () -> handler.pushLogsToServer(logs));
+        }
+
+        Map<PushType, Set<PushType>> dependencies = resolveDependencies(handler, pushes.keySet());
+        Map<PushType, Boolean> results = new EnumMap<>(PushType.class);
+
+        if (isSequential(dependencies)) {
+            pushes.forEach((type, push) -> results.put(type,
+                    referencedPushesSucceeded(type, dependencies, results::get) ? runPush(type, push) : skipPush(type)));
+            return results;
+        }
+
+        Map<PushType, CompletableFuture<Boolean>> futures = new EnumMap<>(PushType.class);
+        pushes.forEach((type, push) -> {
+            Map<PushType, CompletableFuture<Boolean>> waitFor = new EnumMap<>(PushType.class);
+            dependencies.get(type).forEach(dependency -> waitFor.put(dependency, futures.get(dependency)));
+            futures.put(type, CompletableFuture.allOf(waitFor.values().toArray(CompletableFuture[]::new))
+                    .thenApplyAsync(ignored -> referencedPushesSucceeded(type, dependencies, t -> waitFor.get(t).join())
+                            ? runPush(type, push)
+                            : skipPush(type), executor));
+        });
+        futures.forEach((type, future) -> results.put(type, future.join()));
+        return results;
+    }
+
+    /**
+     * Wraps every block into a lifecycle, moving its start and end out of the given maps when present.
+     */
+    private List<BlockLifecycle> mergeLifecycles(List<Block> blocks,
+                                                 Map<VFLId, Long> blockStarts,
+                                                 Map<VFLId, BlockEndData> blockEnds) {
+        List<BlockLifecycle> lifecycles = new ArrayList<>(blocks.size());
+        for (Block block : blocks) {
+            lifecycles.add(new BlockLifecycle(block, blockStarts.remove(block.getId()), blockEnds.remove(block.getId())));
+        }
+        return lifecycles;
+    }
+
+    /**
+     * Keeps only the dependencies that refer to earlier pushes which are actually present in this batch.
+     */
+    private Map<PushType, Set<PushType>> resolveDependencies(VFLFlushHandler handler, Set<PushType> present) {
+        Map<PushType, Set<PushType>> resolved = new EnumMap<>(PushType.class);
+        for (PushType type : present) {
+            Set<PushType> declared = handler.pushDependencies(type);
+            Set<PushType> effective = type.predecessors();
+            effective.retainAll(present);
+            if (declared == null) {
+                effective.clear();
+            } else {
+                effective.retainAll(declared);
+            }
+            resolved.put(type, effective);
+        }
+        return resolved;
+    }
+
+    /**
+     * @return true if every push (after the first) waits for the push directly before it
+     */
+    private boolean isSequential(Map<PushType, Set<PushType>> dependencies) {
+        List<PushType> order = new ArrayList<>(dependencies.keySet());
+        for (int i = 1; i < order.size(); i++) {
+            if (!dependencies.get(order.get(i)).contains(order.get(i - 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false if a push that the given one both waits for and references has failed
+     */
+    private boolean referencedPushesSucceeded(PushType type,
+                                              Map<PushType, Set<PushType>> dependencies,
+                                              Function<PushType, Boolean> resultOf) {
+        for (PushType referenced : type.references()) {
+            if (dependencies.get(type).contains(referenced) && !resultOf.apply(referenced)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean skipPush(PushType type) {
+        log.warn("Push of {} skipped because a push it references failed", type);
+        return false;
+    }
+
+    private boolean runPush(PushType type, BooleanSupplier push) {
+        try {
+            boolean success = push.getAsBoolean();
+            if (!success) {
+                log.warn("Push of {} was not accepted by the flush handler", type);
+            }
+            return success;
+        } catch (Exception e) {
+            log.error("Push of {} failed with exception", type, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package dev.kuku.vfl.core.buffer.flushHandler;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The four kinds of push a {@link VFLFlushHandler} receives during a flush.
+ *
+ * <p>Constants are declared in the canonical flush order (blocks → starts → ends → logs).
+ * A push may only depend on push types declared before it, which keeps the
+ * dependency graph acyclic.</p>
+ */
+public enum PushType {
+    BLOCKS,
+    BLOCK_STARTS,
+    BLOCK_ENDS,
+    LOGS;
+
+    /**
+     * @return every push type that comes before this one in the canonical order
+     */
+    public Set<PushType> predecessors() {
+        Set<PushType> result = EnumSet.noneOf(PushType.class);
+        for (PushType type : values()) {
+            if (type.ordinal() < ordinal()) {
+                result.add(type);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Push types whose IDs this push refers to, i.e. the pushes it is pointless to send without.
+     * Starts, ends and logs all refer to blocks; nothing refers to starts, ends or logs.
+     *
+     * @return {@link #BLOCKS} for every type except {@link #BLOCKS} itself
+     */
+    public Set<PushType> references() {
+        return this == BLOCKS ? EnumSet.noneOf(PushType.class) : EnumSet.of(BLOCKS);
+    }
+}
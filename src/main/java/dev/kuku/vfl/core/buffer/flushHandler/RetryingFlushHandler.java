@@ -0,0 +1,477 @@
+package dev.kuku.vfl.core.buffer.flushHandler;
+
+import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.BlockLifecycle;
+import dev.kuku.vfl.core.models.VFLId;
+import dev.kuku.vfl.core.models.logs.Log;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * {@link VFLFlushHandler} decorator that retries pushes the wrapped handler reported as failed.
+ *
+ * <p>When the delegate returns {@code false} (or throws), the batch is parked in a retry queue and
+ * re-sent later by a dedicated background thread, so independent traffic keeps flowing straight to the
+ * delegate while old batches are retried.</p>
+ *
+ * <h2>Ordering</h2>
+ * Queued batches are retried one at a time, oldest first. A push that depends on a push type with a
+ * batch waiting in the queue (see {@link VFLFlushHandler#pushDependencies(PushType)}) is not sent but
+ * queued behind it, so e.g. the logs of a flush whose blocks failed are never delivered before those
+ * blocks. Once the oldest batch goes through, the batches behind it follow immediately; if it is
+ * dropped, the batches that were held behind it are dropped as well.
+ *
+ * <h2>Retry policy</h2>
+ * <ul>
+ *   <li><b>Exponential backoff with jitter</b> — after its attempt {@code n} failed, the oldest batch waits
+ *       between half and all of {@code min(maxBackoff, baseBackoff * 2^(n-1))}; the batches behind it
+ *       wait with it</li>
+ *   <li><b>Per-batch attempt limit</b> — a batch is dropped after {@code maxAttempts} total attempts
+ *       (including the first one)</li>
+ *   <li><b>Bounded queue</b> — the retry queue holds at most {@code maxQueuedBytes} of estimated
+ *       payload; a batch that doesn't fit is dropped immediately</li>
+ * </ul>
+ * Every retry and drop is counted; see {@link #getStats()}.
+ *
+ * <p><b>Return values:</b> a push returns {@code true} when the batch was delivered or accepted into the
+ * retry queue, and {@code false} only when it was dropped.</p>
+ *
+ * <h2>Example:</h2>
+ * <pre>{@code
+ * VFLFlushHandler handler = new RetryingFlushHandler(
+ *         new VFLHubFlushHandler(URI.create("http://localhost:8080")),
+ *         8, 200, 30_000, 64L * 1024 * 1024);
+ * }</pre>
+ */
+@Slf4j
+public class RetryingFlushHandler implements VFLFlushHandler {
+
+    /**
+     * Point-in-time view of the retry metrics.
+     *
+     * @param failedPushes   pushes the delegate rejected on their first attempt
+     * @param retries        retry attempts made
+     * @param recovered      batches that were delivered by a retry
+     * @param droppedBatches batches given up on (queue full or attempts exhausted)
+     * @param droppedItems   logs/blocks/starts/ends contained in dropped batches
+     * @param queuedBatches  batches currently waiting for a retry
+     * @param queuedBytes    estimated payload size currently waiting for a retry
+     */
+    public record RetryStats(long failedPushes,
+                             long retries,
+                             long recovered,
+                             long droppedBatches,
+                             long droppedItems,
+                             long queuedBatches,
+                             long queuedBytes) {
+    }
+
+    private final VFLFlushHandler delegate;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long maxQueuedBytes;
+
+    // Batches waiting for delivery, oldest first; only the head is attempted. Guarded by itself.
+    private final ArrayDeque<RetryBatch> pending = new ArrayDeque<>();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final LongAdder failedPushes = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder droppedBatches = new LongAdder();
+    private final LongAdder droppedItems = new LongAdder();
+    private final Thread retryWorker;
+    private volatile boolean closed = false;
+
+    /**
+     * @param delegate          handler that actually delivers the data
+     * @param maxAttempts       max attempts per batch, including the initial push
+     * @param baseBackoffMillis backoff before the first retry
+     * @param maxBackoffMillis  upper bound for the backoff of any retry
+     * @param maxQueuedBytes    max estimated payload bytes held for retry
+     */
+    public RetryingFlushHandler(VFLFlushHandler delegate,
+                                int maxAttempts,
+                                long baseBackoffMillis,
+                                long maxBackoffMillis,
+                                long maxQueuedBytes) {
+        this.delegate = delegate;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.retryWorker = new Thread(this::runRetries, "vfl-flush-retry");
+        this.retryWorker.setDaemon(true);
+        this.retryWorker.start();
+    }
+
+    @Override
+    public boolean pushLogsToServer(List<Log> logs) {
+        return pushOrEnqueue(PushType.LOGS, () -> delegate.pushLogsToServer(logs), logs.size(), estimateLogs(logs));
+    }
+
+    @Override
+    public boolean pushBlocksToServer(List<Block> blocks) {
+        return pushOrEnqueue(PushType.BLOCKS, () -> delegate.pushBlocksToServer(blocks), blocks.size(), estimateBlocks(blocks));
+    }
+
+    @Override
+    public boolean pushBlockStartsToServer(Map<VFLId, Long> blockStarts) {
+        return pushOrEnqueue(PushType.BLOCK_STARTS, () -> delegate.pushBlockStartsToServer(blockStarts),
+                blockStarts.size(), 64L * blockStarts.size());
+    }
+
+    @Override
+    public boolean pushBlockEndsToServer(Map<VFLId, BlockEndData> blockEnds) {
+        return pushOrEnqueue(PushType.BLOCK_ENDS, () -> delegate.pushBlockEndsToServer(blockEnds),
+                blockEnds.size(), estimateEnds(blockEnds.values()));
+    }
+
+    /**
+     * Forwards the lifecycles to the delegate as they are, retried as one {@link PushType#BLOCKS} batch.
+     */
+    @Override
+    public boolean pushBlockLifecyclesToServer(List<BlockLifecycle> lifecycles) {
+        int items = 0;
+        long bytes = 0;
+        List<Block> blocks = new ArrayList<>(lifecycles.size());
+        List<BlockEndData> ends = new ArrayList<>();
+        for (BlockLifecycle lifecycle : lifecycles) {
+            blocks.add(lifecycle.getBlock());
+            items++;
+            if (lifecycle.getStartTime() != null) {
+                items++;
+                bytes += 64;
+            }
+            if (lifecycle.getEndData() != null) {
+                ends.add(lifecycle.getEndData());
+                items++;
+            }
+        }
+        bytes += estimateBlocks(blocks) + estimateEnds(ends);
+        return pushOrEnqueue(PushType.BLOCKS, () -> delegate.pushBlockLifecyclesToServer(lifecycles), items, bytes);
+    }
+
+    @Override
+    public Set<PushType> pushDependencies(PushType pushType) {
+        return delegate.pushDependencies(pushType);
+    }
+
+    /**
+     * Stops the retry worker, gives every queued batch one final attempt, counts what is still
+     * undelivered as dropped and closes the delegate.
+     */
+    @Override
+    public void closeFlushHandler() {
+        close(Long.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #closeFlushHandler()}, but queued batches that are still waiting when the timeout
+     * runs out are dropped without a final attempt.
+     *
+     * @return number of items dropped while closing
+     */
+    @Override
+    public long drainAndClose(Duration timeout) {
+        return close(timeout.toNanos());
+    }
+
+    private long close(long timeoutNanos) {
+        if (closed) {
+            return 0;
+        }
+        // Overflows for "unbounded" timeouts, which is fine as long as deadlines are compared by subtraction
+        long deadline = System.nanoTime() + timeoutNanos;
+        long droppedBefore = droppedItems.sum();
+        closed = true;
+        retryWorker.interrupt();
+        try {
+            // The worker may be in the middle of a send; give it until the deadline to finish
+            retryWorker.join(Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        RetryBatch batch;
+        while ((batch = head()) != null) {
+            if (deadline - System.nanoTime() <= 0) {
+                dropWithDependents(batch, "shutdown deadline reached");
+                continue;
+            }
+            retries.increment();
+            if (send(batch)) {
+                recovered.increment();
+                removeDelivered(batch);
+            } else {
+                dropWithDependents(batch, "delivery still failing at shutdown");
+            }
+        }
+        log.debug("Retry layer closed: {}", getStats());
+        delegate.closeFlushHandler();
+        return droppedItems.sum() - droppedBefore;
+    }
+
+    /**
+     * @return current retry and drop counters
+     */
+    public RetryStats getStats() {
+        int queuedBatches;
+        synchronized (pending) {
+            queuedBatches = pending.size();
+        }
+        return new RetryStats(failedPushes.sum(),
+                retries.sum(),
+                recovered.sum(),
+                droppedBatches.sum(),
+                droppedItems.sum(),
+                queuedBatches,
+                queuedBytes.get());
+    }
+
+    private boolean pushOrEnqueue(PushType type, BooleanSupplier push, int itemCount, long bytes) {
+        RetryBatch batch = new RetryBatch(type, push, itemCount, bytes);
+        Set<PushType> dependencies = delegate.pushDependencies(type);
+        synchronized (pending) {
+            List<RetryBatch> blockers = new ArrayList<>();
+            if (dependencies != null) {
+                for (RetryBatch queued : pending) {
+                    if (dependencies.contains(queued.type)) {
+                        blockers.add(queued);
+                    }
+                }
+            }
+            if (!blockers.isEmpty()) {
+                // Sending now could overtake a batch this one references
+                batch.blockers = blockers;
+                return enqueue(batch);
+            }
+        }
+        if (send(batch)) {
+            return true;
+        }
+        failedPushes.increment();
+        batch.attempts = 1;
+        if (batch.attempts >= maxAttempts) {
+            drop(batch, "attempt limit of " + maxAttempts + " reached");
+            return false;
+        }
+        synchronized (pending) {
+            return enqueue(batch);
+        }
+    }
+
+    /**
+     * Appends the batch to the queue; must hold the queue's lock.
+     *
+     * @return true if the batch was queued
+     */
+    private boolean enqueue(RetryBatch batch) {
+        if (closed) {
+            // The final drain may already have run, nothing would pick the batch up again
+            drop(batch, "retry layer is closed");
+            return false;
+        }
+        if (queuedBytes.addAndGet(batch.bytes) > maxQueuedBytes) {
+            queuedBytes.addAndGet(-batch.bytes);
+            drop(batch, "retry queue is full");
+            return false;
+        }
+        if (pending.isEmpty()) {
+            batch.dueAtNanos = System.nanoTime() + backoffNanos(batch.attempts);
+        }
+        pending.addLast(batch);
+        pending.notifyAll();
+        return true;
+    }
+
+    private void runRetries() {
+        while (!closed) {
+            RetryBatch batch;
+            synchronized (pending) {
+                batch = pending.peekFirst();
+                try {
+                    if (batch == null) {
+                        pending.wait();
+                        continue;
+                    }
+                    long delay = batch.dueAtNanos - System.nanoTime();
+                    if (delay > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(pending, delay);
+                        continue;
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            retries.increment();
+            if (send(batch)) {
+                recovered.increment();
+                removeDelivered(batch);
+                log.debug("Recovered {} batch after {} attempts", batch.type, batch.attempts + 1);
+                continue;
+            }
+            synchronized (pending) {
+                batch.attempts++;
+                if (batch.attempts >= maxAttempts) {
+                    dropWithDependents(batch, "attempt limit of " + maxAttempts + " reached");
+                } else {
+                    batch.dueAtNanos = System.nanoTime() + backoffNanos(batch.attempts);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return jittered backoff after the given number of failed attempts
+     */
+    private long backoffNanos(int attempts) {
+        if (attempts == 0) {
+            return 0;
+        }
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempts - 1, 30));
+        long backoff = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        return TimeUnit.MILLISECONDS.toNanos(backoff);
+    }
+
+    private RetryBatch head() {
+        synchronized (pending) {
+            return pending.peekFirst();
+        }
+    }
+
+    /**
+     * Removes a delivered head batch and lets the batches behind it go out right away.
+     */
+    private void removeDelivered(RetryBatch batch) {
+        synchronized (pending) {
+            if (pending.peekFirst() != batch) {
+                return; // already taken by the final drain
+            }
+            pending.removeFirst();
+            queuedBytes.addAndGet(-batch.bytes);
+            RetryBatch next = pending.peekFirst();
+            if (next != null) {
+                next.dueAtNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Drops a queued batch together with every batch held behind it, directly or transitively.
+     */
+    private void dropWithDependents(RetryBatch batch, String reason) {
+        synchronized (pending) {
+            if (!pending.remove(batch)) {
+                return;
+            }
+            queuedBytes.addAndGet(-batch.bytes);
+            drop(batch, reason);
+            Set<RetryBatch> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+            dropped.add(batch);
+            for (Iterator<RetryBatch> iterator = pending.iterator(); iterator.hasNext(); ) {
+                RetryBatch queued = iterator.next();
+                if (queued.blockers.stream().anyMatch(dropped::contains)) {
+                    iterator.remove();
+                    queuedBytes.addAndGet(-queued.bytes);
+                    dropped.add(queued);
+                    drop(queued, "a " + batch.type + " batch it depends on was dropped");
+                }
+            }
+            RetryBatch next = pending.peekFirst();
+            if (next != null) {
+                next.dueAtNanos = System.nanoTime();
+            }
+        }
+    }
+
+    private boolean send(RetryBatch batch) {
+        try {
+            return batch.push.getAsBoolean();
+        } catch (Exception e) {
+            log.error("Push of {} to {} failed with exception", batch.type, delegate, e);
+            return false;
+        }
+    }
+
+    private void drop(RetryBatch batch, String reason) {
+        droppedBatches.increment();
+        droppedItems.add(batch.itemCount);
+        log.warn("Dropping {} batch of {} items after {} attempts: {}", batch.type, batch.itemCount, batch.attempts, reason);
+    }
+
+    /**
+     * Estimates from the message template and argument count; formatting the message here would do the
+     * work of the flush pipeline a second time, for every batch.
+     */
+    private static long estimateLogs(List<Log> logs) {
+        long bytes = 0;
+        for (Log l : logs) {
+            bytes += 160;
+            String template = l.getMessageTemplate();
+            if (template != null) {
+                Object[] args = l.getMessageArgs();
+                bytes += template.length() + (args == null ? 0 : 16L * args.length);
+            } else if (l.getMessage() != null) {
+                bytes += l.getMessage().length(); // formatted eagerly, reading it costs nothing
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimateBlocks(List<Block> blocks) {
+        long bytes = 0;
+        for (Block b : blocks) {
+            bytes += 120 + (b.getBlockName() == null ? 0 : b.getBlockName().length());
+        }
+        return bytes;
+    }
+
+    private static long estimateEnds(Iterable<BlockEndData> ends) {
+        long bytes = 0;
+        for (BlockEndData end : ends) {
+            bytes += 80 + (end.getEndMessage() == null ? 0 : end.getEndMessage().length());
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryingFlushHandler{" +
+                "delegate=" + delegate +
+                ", stats=" + getStats() +
+                '}';
+    }
+
+    private static final class RetryBatch {
+        private final PushType type;
+        private final BooleanSupplier push;
+        private final int itemCount;
+        private final long bytes;
+        // Queued batches this one was held behind
+        private List<RetryBatch> blockers = List.of();
+        private int attempts = 0;
+        private long dueAtNanos;
+
+        RetryBatch(PushType type, BooleanSupplier push, int itemCount, long bytes) {
+            this.type = type;
+            this.push = push;
+            this.itemCount = itemCount;
+            this.bytes = bytes;
+        }
+    }
+}
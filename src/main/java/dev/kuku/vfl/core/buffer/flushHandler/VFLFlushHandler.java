@@ -1,11 +1,17 @@
 package dev.kuku.vfl.core.buffer.flushHandler;
 
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.BlockLifecycle;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.dtos.BlockEndData;
 import dev.kuku.vfl.core.models.logs.Log;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Destination handler for flushing batched VFL trace data.
@@ -34,6 +40,8 @@ import java.util.Map;
  *     <li>{@link #pushLogsToServer(List)}</li>
  * </ol>
  * This ensures all references (IDs) exist before related events are sent.
+ * Handlers whose destination does not need the full sequence can relax it by overriding
+ * {@link #pushDependencies(PushType)}; independent pushes are then sent concurrently.
  *
  * <h2>Lifecycle:</h2>
  * <ul>
@@ -66,7 +74,7 @@ public interface VFLFlushHandler {
      * @param blockStarts map where key = blockId, value = epoch millis start time
      * @return true if successfully delivered, false otherwise
      */
-    boolean pushBlockStartsToServer(Map<String, Long> blockStarts);
+    boolean pushBlockStartsToServer(Map<VFLId, Long> blockStarts);
 
     /**
      * Push a mapping of block IDs to their end data.
@@ -74,11 +82,86 @@ public interface VFLFlushHandler {
      * @param blockEnds map where key = blockId, value = end metadata (timestamp + optional message)
      * @return true if successfully delivered, false otherwise
      */
-    boolean pushBlockEndsToServer(Map<String, BlockEndData> blockEnds);
+    boolean pushBlockEndsToServer(Map<VFLId, BlockEndData> blockEnds);
+
+    /**
+     * Push blocks together with the start/end events that were flushed in the same batch.
+     *
+     * <p>Buffers merge a block with its start and end when all of them are flushed together. Handlers that
+     * override this method and send the lifecycles as they are (such as {@link VFLHubFlushHandler} with
+     * {@link HubOptions#blockLifecycles()} enabled) deliver a short-lived block as one item instead of three. The default saves nothing:
+     * it splits the lifecycles back into {@link #pushBlocksToServer(List)}, {@link #pushBlockStartsToServer(Map)}
+     * and {@link #pushBlockEndsToServer(Map)}, in that order, and stops at the first push that fails, since
+     * starts and ends of blocks the destination did not receive would reference unknown IDs.</p>
+     *
+     * @param lifecycles blocks with their optional start time and end data
+     * @return true if everything was successfully delivered, false otherwise
+     */
+    default boolean pushBlockLifecyclesToServer(List<BlockLifecycle> lifecycles) {
+        List<Block> blocks = new ArrayList<>(lifecycles.size());
+        Map<VFLId, Long> starts = new HashMap<>();
+        Map<VFLId, BlockEndData> ends = new HashMap<>();
+        for (BlockLifecycle lifecycle : lifecycles) {
+            Block block = lifecycle.getBlock();
+            blocks.add(block);
+            if (lifecycle.getStartTime() != null) {
+                starts.put(block.getId(), lifecycle.getStartTime());
+            }
+            if (lifecycle.getEndData() != null) {
+                ends.put(block.getId(), lifecycle.getEndData());
+            }
+        }
+        if (!pushBlocksToServer(blocks)) {
+            return false;
+        }
+        if (!starts.isEmpty() && !pushBlockStartsToServer(starts)) {
+            return false;
+        }
+        return ends.isEmpty() || pushBlockEndsToServer(ends);
+    }
+
+    /**
+     * Declares which pushes must complete before the given push may start.
+     *
+     * <p>The default keeps the strict sequential order (every push waits for all pushes
+     * declared before it in {@link PushType}). Dependencies on later push types are ignored.</p>
+     *
+     * @param pushType the push being scheduled
+     * @return push types that must finish first; empty if the push is independent
+     */
+    default Set<PushType> pushDependencies(PushType pushType) {
+        return pushType.predecessors();
+    }
+
+    /**
+     * Whether this handler keeps references to pushed logs or end data after a push returns
+     * (e.g., to retry them later or to write them out on close).
+     *
+     * <p>Only when this returns {@code false} may buffers hand the objects back to
+     * {@link dev.kuku.vfl.core.helpers.pool.VFLEventPool} for reuse. The default is the safe answer, {@code true}.</p>
+     */
+    default boolean retainsEvents() {
+        return true;
+    }
 
     /**
      * Release any resources used by this flush handler.
      * <p>Called once during shutdown; should close connections and stop background tasks.</p>
      */
     void closeFlushHandler();
+
+    /**
+     * Delivers whatever the handler still holds (e.g., batches waiting for a retry) within the given
+     * time budget, then closes it.
+     *
+     * <p>The default simply calls {@link #closeFlushHandler()}, as handlers that hold nothing
+     * have nothing to drain.</p>
+     *
+     * @param timeout max time to spend delivering held data
+     * @return number of items (logs/blocks/starts/ends) that had to be dropped
+     */
+    default long drainAndClose(Duration timeout) {
+        closeFlushHandler();
+        return 0;
+    }
 }
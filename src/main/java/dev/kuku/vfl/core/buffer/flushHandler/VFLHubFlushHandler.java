@@ -2,9 +2,10 @@ package dev.kuku.vfl.core.buffer.flushHandler;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.BlockLifecycle;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.dtos.BlockEndData;
 import dev.kuku.vfl.core.models.logs.Log;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
@@ -12,8 +13,12 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 /**
  * VFL flush handler that sends batched logs and blocks to a VFL Hub via blocking HTTP calls.
@@ -29,73 +34,283 @@ import java.util.Map;
  *   <li>Performs POST requests to configured endpoints for logs, blocks, block starts, and block ends</li>
  *   <li>Logs detailed debug and warning information on each request and response</li>
  *   <li>Retries and error handling are left to the caller or upper layers</li>
+ *   <li>Only requires blocks to exist before starts, ends and logs; those three are sent concurrently</li>
+ *   <li>Bounded connect and request timeouts, plus a {@link CircuitBreaker} that fails pushes fast while
+ *       the Hub is unreachable instead of tying up flush threads</li>
+ *   <li>Optional dictionary encoding of message templates and block names, see
+ *       {@link HubOptions#dictionaryEncoding()}</li>
  * </ul>
  *
+ * <p><b>Circuit breaker:</b> after {@link HubOptions#failureThreshold()} consecutive failed requests
+ * (I/O errors, timeouts or 5xx responses) the circuit opens and, for {@link HubOptions#openDuration()},
+ * pushes are not sent at all. They are handed to {@link HubOptions#fallback()} if one is configured
+ * (e.g. a file-based handler acting as spill, or {@link NoOpsFlushHandler} to drop explicitly),
+ * otherwise they return {@code false}. After the open duration a single trial request decides whether
+ * the circuit closes again.</p>
+ *
  * <p><b>Usage:</b> Instantiate with the base URI of your VFL Hub endpoint (e.g., "<a href="http://host:port">http://localhost:8080</a>").
  * This handler can then be passed to a {@link dev.kuku.vfl.core.buffer.VFLBuffer} implementation
  * that supports flushing.</p>
  */
 @Slf4j
-@RequiredArgsConstructor
 public class VFLHubFlushHandler implements VFLFlushHandler {
 
+    /**
+     * Connection and failure-handling settings of the Hub handler.
+     *
+     * @param connectTimeout   max time to establish a connection to the Hub
+     * @param requestTimeout   max time to wait for the response of a single request
+     * @param failureThreshold consecutive failed requests that open the circuit
+     * @param openDuration     time the circuit stays open before a trial request is sent
+     * @param fallback         handler receiving pushes while the circuit is open, or null to just fail them
+     * @param blockLifecycles  true to send merged block lifecycles to the Hub's {@code /block-lifecycles}
+     *                         endpoint; false to split them into the separate block, start and end requests
+     * @param dictionaryEncoding true to send logs, blocks and block lifecycles with message templates and
+     *                           block names replaced by per-session dictionary IDs (content type
+     *                           {@value #DICTIONARY_CONTENT_TYPE}); the Hub must support it. Only logs
+     *                           created with a deferred {@link dev.kuku.vfl.core.helpers.MessageFormatting}
+     *                           still have their template, so with the default
+     *                           {@link dev.kuku.vfl.core.helpers.MessageFormatting#EAGER EAGER} formatting log
+     *                           messages are sent in full and only block names are encoded
+     */
+    public record HubOptions(Duration connectTimeout,
+                             Duration requestTimeout,
+                             int failureThreshold,
+                             Duration openDuration,
+                             VFLFlushHandler fallback,
+                             boolean blockLifecycles,
+                             boolean dictionaryEncoding) {
+
+        /**
+         * 5s connect timeout, 10s request timeout, circuit opens after 5 consecutive failures
+         * for 30s, no fallback, separate block/start/end requests, plain JSON.
+         */
+        public static HubOptions defaults() {
+            return new HubOptions(Duration.ofSeconds(5), Duration.ofSeconds(10), 5, Duration.ofSeconds(30), null, false, false);
+        }
+
+        public HubOptions withConnectTimeout(Duration connectTimeout) {
+            return new HubOptions(connectTimeout, requestTimeout, failureThreshold, openDuration, fallback, blockLifecycles, dictionaryEncoding);
+        }
+
+        public HubOptions withRequestTimeout(Duration requestTimeout) {
+            return new HubOptions(connectTimeout, requestTimeout, failureThreshold, openDuration, fallback, blockLifecycles, dictionaryEncoding);
+        }
+
+        public HubOptions withCircuitBreaker(int failureThreshold, Duration openDuration) {
+            return new HubOptions(connectTimeout, requestTimeout, failureThreshold, openDuration, fallback, blockLifecycles, dictionaryEncoding);
+        }
+
+        public HubOptions withFallback(VFLFlushHandler fallback) {
+            return new HubOptions(connectTimeout, requestTimeout, failureThreshold, openDuration, fallback, blockLifecycles, dictionaryEncoding);
+        }
+
+        public HubOptions withBlockLifecycles(boolean blockLifecycles) {
+            return new HubOptions(connectTimeout, requestTimeout, failureThreshold, openDuration, fallback, blockLifecycles, dictionaryEncoding);
+        }
+
+        public HubOptions withDictionaryEncoding(boolean dictionaryEncoding) {
+            return new HubOptions(connectTimeout, requestTimeout, failureThreshold, openDuration, fallback, blockLifecycles, dictionaryEncoding);
+        }
+    }
+
+    /**
+     * Content type of dictionary encoded payloads.
+     */
+    public static final String DICTIONARY_CONTENT_TYPE = "application/vnd.vfl.dictionary+json";
+    private static final String JSON_CONTENT_TYPE = "application/json";
+    private static final int MAX_DICTIONARY_ENTRIES = 16_384;
+
     private static final String ADD_LOGS_EP = "/logs";
     private static final String ADD_BLOCKS_EP = "/blocks";
     private static final String ADD_BLOCK_STARTS_EP = "/block-starts";
     private static final String ADD_BLOCK_ENDS_EP = "/block-ends";
+    private static final String ADD_BLOCK_LIFECYCLES_EP = "/block-lifecycles";
     private static final String API_VERSION = "api/v1";
 
     private final URI url;
-    private final HttpClient httpClient = HttpClient.newBuilder().build();
+    private final HubOptions options;
+    private final HttpClient httpClient;
+    private final CircuitBreaker circuitBreaker;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WireDictionary dictionary;
+
+    /**
+     * Creates a handler with {@link HubOptions#defaults()}.
+     */
+    public VFLHubFlushHandler(URI url) {
+        this(url, HubOptions.defaults());
+    }
+
+    public VFLHubFlushHandler(URI url, HubOptions options) {
+        this.url = url;
+        this.options = options;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(options.connectTimeout())
+                .build();
+        this.circuitBreaker = new CircuitBreaker("vfl-hub " + url, options.failureThreshold(), options.openDuration());
+        this.dictionary = options.dictionaryEncoding() ? new WireDictionary(objectMapper, MAX_DICTIONARY_ENTRIES) : null;
+    }
 
     @Override
     public boolean pushLogsToServer(List<Log> logs) {
-        return postData(logs, ADD_LOGS_EP, "logs");
+        if (dictionary != null) {
+            return postEncoded(() -> dictionary.encodeLogs(logs), logs.size(), ADD_LOGS_EP, "logs",
+                    () -> options.fallback().pushLogsToServer(logs));
+        }
+        return postData(logs, ADD_LOGS_EP, "logs",
+                () -> options.fallback().pushLogsToServer(logs));
     }
 
     @Override
     public boolean pushBlocksToServer(List<Block> blocks) {
-        return postData(blocks, ADD_BLOCKS_EP, "blocks");
+        if (dictionary != null) {
+            return postEncoded(() -> dictionary.encodeBlocks(blocks), blocks.size(), ADD_BLOCKS_EP, "blocks",
+                    () -> options.fallback().pushBlocksToServer(blocks));
+        }
+        return postData(blocks, ADD_BLOCKS_EP, "blocks",
+                () -> options.fallback().pushBlocksToServer(blocks));
     }
 
     @Override
-    public boolean pushBlockStartsToServer(Map<String, Long> blockStarts) {
-        return postData(blockStarts, ADD_BLOCK_STARTS_EP, "block starts");
+    public boolean pushBlockStartsToServer(Map<VFLId, Long> blockStarts) {
+        return postData(blockStarts, ADD_BLOCK_STARTS_EP, "block starts",
+                () -> options.fallback().pushBlockStartsToServer(blockStarts));
     }
 
     @Override
-    public boolean pushBlockEndsToServer(Map<String, BlockEndData> blockEnds) {
-        return postData(blockEnds, ADD_BLOCK_ENDS_EP, "block ends");
+    public boolean pushBlockEndsToServer(Map<VFLId, BlockEndData> blockEnds) {
+        return postData(blockEnds, ADD_BLOCK_ENDS_EP, "block ends",
+                () -> options.fallback().pushBlockEndsToServer(blockEnds));
     }
 
-    private <T> boolean postData(T data, String endpoint, String dataDescription) {
-        log.debug("Attempting to push {} {} to server", (data instanceof List<?> ? ((List<?>) data).size() : ((Map<?, ?>) data).size()), dataDescription);
-        try {
-            String jsonBody = objectMapper.writeValueAsString(data);
-            log.trace("Serialized {} to JSON: {} characters", dataDescription, jsonBody.length());
+    /**
+     * Sends the lifecycles in a single request if {@link HubOptions#blockLifecycles()} is enabled,
+     * otherwise splits them into the regular block, start and end requests.
+     */
+    @Override
+    public boolean pushBlockLifecyclesToServer(List<BlockLifecycle> lifecycles) {
+        if (!options.blockLifecycles()) {
+            return VFLFlushHandler.super.pushBlockLifecyclesToServer(lifecycles);
+        }
+        if (dictionary != null) {
+            return postEncoded(() -> dictionary.encodeBlockLifecycles(lifecycles), lifecycles.size(),
+                    ADD_BLOCK_LIFECYCLES_EP, "block lifecycles",
+                    () -> options.fallback().pushBlockLifecyclesToServer(lifecycles));
+        }
+        return postData(lifecycles, ADD_BLOCK_LIFECYCLES_EP, "block lifecycles",
+                () -> options.fallback().pushBlockLifecyclesToServer(lifecycles));
+    }
+
+    /**
+     * Payloads are fully serialized before a push returns, so only a fallback can keep references.
+     */
+    @Override
+    public boolean retainsEvents() {
+        return options.fallback() != null && options.fallback().retainsEvents();
+    }
+
+    /**
+     * @return current state of the circuit guarding the Hub
+     */
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * The Hub only needs a block to exist before anything references it, so starts, ends and logs
+     * depend on blocks but not on each other.
+     */
+    @Override
+    public Set<PushType> pushDependencies(PushType pushType) {
+        return pushType == PushType.BLOCKS ? EnumSet.noneOf(PushType.class) : EnumSet.of(PushType.BLOCKS);
+    }
+
+    /**
+     * Writes a dictionary encoded payload, see {@link WireDictionary}.
+     */
+    @FunctionalInterface
+    private interface PayloadEncoder {
+        WireDictionary.Payload encode() throws IOException;
+    }
+
+    private <T> boolean postData(T data, String endpoint, String dataDescription, BooleanSupplier fallbackPush) {
+        int count = data instanceof List<?> ? ((List<?>) data).size() : ((Map<?, ?>) data).size();
+        return post(() -> new WireDictionary.Payload(objectMapper.writeValueAsBytes(data), List.of()),
+                JSON_CONTENT_TYPE, count, endpoint, dataDescription, fallbackPush);
+    }
+
+    private boolean postEncoded(PayloadEncoder encoder, int count, String endpoint, String dataDescription, BooleanSupplier fallbackPush) {
+        return post(encoder, DICTIONARY_CONTENT_TYPE, count, endpoint, dataDescription, fallbackPush);
+    }
 
+    private boolean post(PayloadEncoder encoder, String contentType, int count, String endpoint, String dataDescription, BooleanSupplier fallbackPush) {
+        if (!circuitBreaker.tryAcquire()) {
+            if (options.fallback() == null) {
+                log.debug("Circuit to hub is open, failing push of {} fast", dataDescription);
+                return false;
+            }
+            log.debug("Circuit to hub is open, routing {} to fallback {}", dataDescription, options.fallback());
+            return fallbackPush.getAsBoolean();
+        }
+        log.debug("Attempting to push {} {} to server", count, dataDescription);
+        WireDictionary.Payload payload;
+        try {
+            payload = encoder.encode();
+            log.trace("Serialized {} to JSON: {} bytes", dataDescription, payload.body().length);
+        } catch (IOException | RuntimeException e) {
+            // Not the hub's fault; release a possible trial slot without counting a failure
+            circuitBreaker.releaseTrial();
+            log.error("Failed to serialize {}", dataDescription, e);
+            return false;
+        }
+        try {
             String fullUrl = url.toString() + "/" + API_VERSION + endpoint;
             HttpRequest request = HttpRequest.newBuilder()
-                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(payload.body()))
                     .uri(URI.create(fullUrl))
-                    .header("Content-Type", "application/json")
+                    .header("Content-Type", contentType)
+                    .timeout(options.requestTimeout())
                     .build();
 
             log.debug("Sending POST request to: {}", fullUrl);
             HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
 
             boolean success = response.statusCode() >= 200 && response.statusCode() < 300;
+            // 4xx means the hub is up but rejected this payload; only server-side errors count against the circuit
+            if (response.statusCode() >= 500) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
             if (success) {
+                if (dictionary != null) {
+                    dictionary.acknowledge(payload);
+                }
                 log.debug("Successfully pushed {} to server. Status: {}", dataDescription, response.statusCode());
             } else {
+                if (dictionary != null && response.statusCode() == 409) {
+                    // The hub lost the session's dictionary; resend every entry with the next payloads
+                    dictionary.resetAcknowledged();
+                }
                 log.warn("Failed to push {} to server. Status: {}, Response: {}", dataDescription, response.statusCode(), response.body());
             }
 
             return success;
-        } catch (IOException | InterruptedException e) {
+        } catch (IOException e) {
+            circuitBreaker.onFailure();
             log.error("Error pushing {} to server", dataDescription, e);
             return false;
+        } catch (InterruptedException e) {
+            // Says nothing about the hub; let the next call take the trial slot
+            circuitBreaker.releaseTrial();
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while pushing {} to server", dataDescription);
+            return false;
+        } catch (RuntimeException e) {
+            // Request building failed; the trial slot must still be released
+            circuitBreaker.releaseTrial();
+            throw e;
         }
     }
 
@@ -103,5 +318,16 @@ public class VFLHubFlushHandler implements VFLFlushHandler {
     public void closeFlushHandler() {
         // The java.net.http.HttpClient does not require explicit shutdown.
         // Resources will be cleaned up automatically.
+        if (options.fallback() != null) {
+            options.fallback().closeFlushHandler();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VFLHubFlushHandler{" +
+                "url=" + url +
+                ", circuit=" + circuitBreaker.getState() +
+                '}';
     }
 }
@@ -0,0 +1,237 @@
+package dev.kuku.vfl.core.buffer.flushHandler;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.helpers.VFLHelper;
+import dev.kuku.vfl.core.helpers.render.ArgRenderers;
+import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.BlockLifecycle;
+import dev.kuku.vfl.core.models.VFLId;
+import dev.kuku.vfl.core.models.logs.Log;
+import dev.kuku.vfl.core.models.logs.SubBlockStartLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dictionary encoding of message templates and block names for {@link VFLHubFlushHandler} payloads.
+ *
+ * <p>Each distinct string gets a small integer ID within a session (one per handler instance). A payload
+ * carries the dictionary entries the Hub has not acknowledged yet, followed by the items referring to
+ * them by ID:</p>
+ * <pre>{@code
+ * {"sessionId":"...","dictionary":{"0":"Charged {}","1":"processOrder"},
+ *  "logs":[{"id":"...","blockId":"...","logType":"MESSAGE","timestamp":1,"templateId":0,"args":["bob"]}]}
+ * }</pre>
+ *
+ * <p>An entry counts as acknowledged once a payload containing it was accepted; until then it is resent
+ * with every payload that uses it. Only logs created with deferred formatting still have their template;
+ * other logs keep their plain {@code message}. Once {@code maxEntries} strings are known, new strings are
+ * sent inline. Payloads are written with a streaming {@link JsonGenerator}.</p>
+ */
+class WireDictionary {
+
+    private final VFLId sessionId = VFLHelper.UID();
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> entries = new ConcurrentHashMap<>();
+    private final Set<Integer> acknowledged = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    WireDictionary(ObjectMapper objectMapper, int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Serialized payload plus the dictionary entries it introduces.
+     */
+    record Payload(byte[] body, Collection<Integer> newEntries) {
+    }
+
+    VFLId getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Marks the entries of an accepted payload as known to the Hub.
+     */
+    void acknowledge(Payload payload) {
+        acknowledged.addAll(payload.newEntries());
+    }
+
+    /**
+     * Forgets what the Hub acknowledged (e.g. after it lost the session), so entries are resent.
+     */
+    void resetAcknowledged() {
+        acknowledged.clear();
+    }
+
+    Payload encodeLogs(List<Log> logs) throws IOException {
+        Set<Integer> newEntries = new LinkedHashSet<>();
+        int[] templateIds = new int[logs.size()];
+        for (int i = 0; i < logs.size(); i++) {
+            templateIds[i] = register(logs.get(i).getMessageTemplate(), newEntries);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128 * logs.size());
+        try (JsonGenerator gen = start(out, newEntries, "logs")) {
+            for (int i = 0; i < logs.size(); i++) {
+                writeLog(gen, logs.get(i), templateIds[i]);
+            }
+            end(gen);
+        }
+        return new Payload(out.toByteArray(), newEntries);
+    }
+
+    Payload encodeBlocks(List<Block> blocks) throws IOException {
+        Set<Integer> newEntries = new LinkedHashSet<>();
+        int[] nameIds = new int[blocks.size()];
+        for (int i = 0; i < blocks.size(); i++) {
+            nameIds[i] = register(blocks.get(i).getBlockName(), newEntries);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(96 * blocks.size());
+        try (JsonGenerator gen = start(out, newEntries, "blocks")) {
+            for (int i = 0; i < blocks.size(); i++) {
+                gen.writeStartObject();
+                writeBlockFields(gen, blocks.get(i), nameIds[i]);
+                gen.writeEndObject();
+            }
+            end(gen);
+        }
+        return new Payload(out.toByteArray(), newEntries);
+    }
+
+    Payload encodeBlockLifecycles(List<BlockLifecycle> lifecycles) throws IOException {
+        Set<Integer> newEntries = new LinkedHashSet<>();
+        int[] nameIds = new int[lifecycles.size()];
+        for (int i = 0; i < lifecycles.size(); i++) {
+            nameIds[i] = register(lifecycles.get(i).getBlock().getBlockName(), newEntries);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128 * lifecycles.size());
+        try (JsonGenerator gen = start(out, newEntries, "blockLifecycles")) {
+            for (int i = 0; i < lifecycles.size(); i++) {
+                BlockLifecycle lifecycle = lifecycles.get(i);
+                gen.writeStartObject();
+                writeBlockFields(gen, lifecycle.getBlock(), nameIds[i]);
+                if (lifecycle.getStartTime() != null) {
+                    gen.writeNumberField("startTime", lifecycle.getStartTime());
+                }
+                BlockEndData end = lifecycle.getEndData();
+                if (end != null) {
+                    gen.writeNumberField("endTime", end.getEndTime());
+                    if (end.getEndMessage() != null) {
+                        gen.writeStringField("endMessage", end.getEndMessage());
+                    }
+                    if (end.getDurationNanos() != 0) {
+                        gen.writeNumberField("durationNanos", end.getDurationNanos());
+                    }
+                }
+                gen.writeEndObject();
+            }
+            end(gen);
+        }
+        return new Payload(out.toByteArray(), newEntries);
+    }
+
+    /**
+     * @return ID of the string, or -1 if it is sent inline
+     */
+    private int register(String value, Set<Integer> newEntries) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            if (ids.size() >= maxEntries) {
+                return -1;
+            }
+            id = ids.computeIfAbsent(value, v -> {
+                int assigned = nextId.getAndIncrement();
+                entries.put(assigned, v);
+                return assigned;
+            });
+        }
+        if (!acknowledged.contains(id)) {
+            newEntries.add(id);
+        }
+        return id;
+    }
+
+    private JsonGenerator start(ByteArrayOutputStream out, Set<Integer> newEntries, String itemsField) throws IOException {
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        gen.writeStartObject();
+        gen.writeStringField("sessionId", sessionId.toString());
+        if (!newEntries.isEmpty()) {
+            gen.writeObjectFieldStart("dictionary");
+            for (Integer id : newEntries) {
+                gen.writeStringField(Integer.toString(id), entries.get(id));
+            }
+            gen.writeEndObject();
+        }
+        gen.writeArrayFieldStart(itemsField);
+        return gen;
+    }
+
+    private void end(JsonGenerator gen) throws IOException {
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+
+    private void writeLog(JsonGenerator gen, Log log, int templateId) throws IOException {
+        gen.writeStartObject();
+        writeId(gen, "id", log.getId());
+        writeId(gen, "blockId", log.getBlockId());
+        writeId(gen, "parentLogId", log.getParentLogId());
+        gen.writeStringField("logType", log.getLogType().value);
+        gen.writeNumberField("timestamp", log.getTimestamp());
+        if (log instanceof SubBlockStartLog subBlockStartLog) {
+            writeId(gen, "referencedBlockId", subBlockStartLog.getReferencedBlockId());
+        }
+        if (templateId >= 0) {
+            gen.writeNumberField("templateId", templateId);
+            gen.writeArrayFieldStart("args");
+            Object[] args = log.getMessageArgs();
+            if (args != null) {
+                for (Object arg : args) {
+                    gen.writeString(ArgRenderers.render(arg));
+                }
+            }
+            gen.writeEndArray();
+        } else if (log.getMessage() != null) {
+            gen.writeStringField("message", log.getMessage());
+        }
+        if (log.getAttributes() != null) {
+            gen.writeObjectField("attributes", log.getAttributes());
+        }
+        gen.writeEndObject();
+    }
+
+    private void writeBlockFields(JsonGenerator gen, Block block, int nameId) throws IOException {
+        writeId(gen, "id", block.getId());
+        writeId(gen, "parentBlockId", block.getParentBlockId());
+        if (nameId >= 0) {
+            gen.writeNumberField("blockNameId", nameId);
+        } else {
+            gen.writeStringField("blockName", block.getBlockName());
+        }
+        if (block.getAttributes() != null) {
+            gen.writeObjectField("attributes", block.getAttributes());
+        }
+    }
+
+    private void writeId(JsonGenerator gen, String field, VFLId id) throws IOException {
+        if (id != null) {
+            gen.writeStringField(field, id.toString());
+        }
+    }
+}
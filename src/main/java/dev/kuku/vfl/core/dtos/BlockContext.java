@@ -1,6 +1,8 @@
 package dev.kuku.vfl.core.dtos;
 
+import dev.kuku.vfl.core.buffer.VFLBuffer;
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
@@ -11,5 +13,16 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class BlockContext {
     public final Block blockInfo;
     public final AtomicBoolean blockStarted = new AtomicBoolean(false);
-    public String currentLogId;
+    public VFLId currentLogId;
+    /** {@link dev.kuku.vfl.core.helpers.clock.VFLClock#nanoTime()} when the block was started, set before {@link #blockStarted} */
+    public volatile long startNanos;
+    /** Buffer receiving the events of this block on the owning thread; null for the implementation's default buffer */
+    public VFLBuffer buffer;
+    /** Max duration before the block is flagged on close, see {@link dev.kuku.vfl.core.helpers.VFLSlaBreaches}; 0 for none */
+    public long slaNanos;
+    /** Duration measured when the block was closed */
+    public long durationNanos;
+    /** Name and duration of the slowest direct child that ended on the owning thread so far */
+    public String slowestChildName;
+    public long slowestChildNanos;
 }
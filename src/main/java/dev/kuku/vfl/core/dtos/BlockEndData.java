@@ -1,5 +1,6 @@
 package dev.kuku.vfl.core.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -10,6 +11,16 @@ import lombok.Setter;
 @AllArgsConstructor
 @NoArgsConstructor
 public class BlockEndData {
-    private Long endTime;
+    private long endTime;
     private String endMessage;
-}
\ No newline at end of file
+    /**
+     * Precise block duration measured with a monotonic clock; 0 (and omitted from JSON) when unknown.
+     * Prefer it over {@code endTime - startTime}, which only has millisecond resolution.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long durationNanos;
+
+    public BlockEndData(long endTime, String endMessage) {
+        this(endTime, endMessage, 0);
+    }
+}
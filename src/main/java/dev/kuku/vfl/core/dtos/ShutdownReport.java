@@ -0,0 +1,34 @@
+package dev.kuku.vfl.core.dtos;
+
+/**
+ * Outcome of a deadline-bound buffer shutdown.
+ *
+ * @param elapsedMillis        time the shutdown took
+ * @param deadlineExceeded     true if the deadline was hit before everything was drained
+ * @param droppedBufferedItems buffered logs/blocks/starts/ends discarded because no time was left to flush them
+ * @param droppedInFlightItems items of flushes that were still queued or running when the deadline was hit
+ * @param droppedRetryItems    items still waiting for a retry that could not be delivered in time
+ * @param rejectedItems        items pushed after the shutdown had begun, which the buffer no longer accepts
+ */
+public record ShutdownReport(long elapsedMillis,
+                             boolean deadlineExceeded,
+                             long droppedBufferedItems,
+                             long droppedInFlightItems,
+                             long droppedRetryItems,
+                             long rejectedItems) {
+
+    public static ShutdownReport clean(long elapsedMillis) {
+        return new ShutdownReport(elapsedMillis, false, 0, 0, 0, 0);
+    }
+
+    public long droppedItems() {
+        return droppedBufferedItems + droppedInFlightItems + droppedRetryItems + rejectedItems;
+    }
+
+    /**
+     * @return true if everything was drained within the deadline
+     */
+    public boolean isClean() {
+        return !deadlineExceeded && droppedItems() == 0;
+    }
+}
@@ -0,0 +1,58 @@
+package dev.kuku.vfl.core.helpers;
+
+import dev.kuku.vfl.core.helpers.render.ArgRenderers;
+import dev.kuku.vfl.core.models.VFLId;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.UUID;
+
+/**
+ * When log messages with arguments are formatted.
+ */
+public enum MessageFormatting {
+    /**
+     * Format on the calling thread when the log is created (default). The template is not kept, so
+     * Hub dictionary encoding cannot replace these messages with template IDs.
+     */
+    EAGER,
+    /**
+     * Keep the template and the argument references in the log and format on first read, normally in
+     * the flush pipeline. Cheapest for the caller, but arguments mutated after the log call show their
+     * state at flush time.
+     */
+    DEFERRED_REFERENCE,
+    /**
+     * Like {@link #DEFERRED_REFERENCE}, but arguments that are not known to be immutable are turned into
+     * their bounded {@link ArgRenderers} form on the calling thread, so the message reflects the state
+     * at the log call.
+     */
+    DEFERRED_SNAPSHOT;
+
+    /**
+     * @return the arguments to keep in a deferred log
+     */
+    public Object[] capture(Object[] args) {
+        if (this != DEFERRED_SNAPSHOT || args == null) {
+            return args;
+        }
+        Object[] snapshot = args.clone();
+        for (int i = 0; i < snapshot.length; i++) {
+            if (!isImmutable(snapshot[i])) {
+                snapshot[i] = ArgRenderers.render(snapshot[i]);
+            }
+        }
+        return snapshot;
+    }
+
+    private static boolean isImmutable(Object arg) {
+        return arg == null
+                || arg instanceof String
+                || arg instanceof Number && arg.getClass().getName().startsWith("java.lang.")
+                || arg instanceof Boolean
+                || arg instanceof Character
+                || arg instanceof Enum<?>
+                || arg instanceof UUID
+                || arg instanceof VFLId
+                || arg instanceof TemporalAccessor && arg.getClass().getName().startsWith("java.time.");
+    }
+}
@@ -0,0 +1,224 @@
+package dev.kuku.vfl.core.helpers;
+
+import dev.kuku.vfl.core.helpers.render.ArgRenderers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A message template parsed once into literal and placeholder segments.
+ *
+ * <p>Two placeholder syntaxes are supported:</p>
+ * <ul>
+ *   <li>{@link Syntax#SEQUENTIAL} — SLF4J style {@code {}}, filled with the arguments in order</li>
+ *   <li>{@link Syntax#INDEXED} — {@code {0}}, {@code {1}}, ... for arguments by index and
+ *       {@code {r}} / {@code {return}} (case-insensitive) for a return value</li>
+ * </ul>
+ * <p>Placeholders without a value (too few arguments, index out of range, no return value) are kept
+ * as they were written. Argument values are rendered through {@link ArgRenderers}, which bounds their
+ * length, and are never re-scanned for placeholders.</p>
+ *
+ * <p>Compiled templates are cached by template string in a bounded cache, so a template written in
+ * code is parsed once and every later {@link #format}/{@link #render} is a single pass into a
+ * pre-sized {@link StringBuilder}. When the cache is full it is cleared, which keeps one-off strings
+ * (e.g. already formatted messages) from pinning memory.</p>
+ */
+public final class MessageTemplate {
+
+    public enum Syntax {
+        SEQUENTIAL,
+        INDEXED
+    }
+
+    /**
+     * Max templates cached per syntax.
+     */
+    public static final int MAX_CACHED_TEMPLATES = 4096;
+
+    private static final Object NO_RETURN_VALUE = new Object();
+    private static final int SEQUENTIAL_ARG = -1;
+    private static final int RETURN_VALUE = -2;
+    private static final Map<String, MessageTemplate> sequentialCache = new ConcurrentHashMap<>();
+    private static final Map<String, MessageTemplate> indexedCache = new ConcurrentHashMap<>();
+
+    private final String template;
+    // literals[i] precedes placeholder i; the last literal follows the last placeholder
+    private final String[] literals;
+    // argument index, SEQUENTIAL_ARG or RETURN_VALUE
+    private final int[] placeholders;
+    // placeholder text as written, used when there is no value for it
+    private final String[] placeholderTexts;
+    private final int literalLength;
+    private final boolean returnPlaceholder;
+    private final boolean argumentPlaceholder;
+
+    private MessageTemplate(String template, String[] literals, int[] placeholders, String[] placeholderTexts) {
+        this.template = template;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.placeholderTexts = placeholderTexts;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+        boolean hasReturn = false;
+        boolean hasArgument = false;
+        for (int placeholder : placeholders) {
+            hasReturn |= placeholder == RETURN_VALUE;
+            hasArgument |= placeholder != RETURN_VALUE;
+        }
+        this.returnPlaceholder = hasReturn;
+        this.argumentPlaceholder = hasArgument;
+    }
+
+    /**
+     * @return the compiled template, from the cache if it was compiled before
+     */
+    public static MessageTemplate compile(String template, Syntax syntax) {
+        Map<String, MessageTemplate> cache = syntax == Syntax.SEQUENTIAL ? sequentialCache : indexedCache;
+        MessageTemplate compiled = cache.get(template);
+        if (compiled == null) {
+            compiled = parse(template, syntax);
+            if (cache.size() >= MAX_CACHED_TEMPLATES) {
+                cache.clear();
+            }
+            cache.put(template, compiled);
+        }
+        return compiled;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public boolean hasPlaceholders() {
+        return placeholders.length > 0;
+    }
+
+    /**
+     * @return true if an {@link Syntax#INDEXED} template contains {@code {r}} or {@code {return}}
+     */
+    public boolean hasReturnPlaceholder() {
+        return returnPlaceholder;
+    }
+
+    /**
+     * @return true if the template contains a placeholder filled from the arguments
+     */
+    public boolean hasArgumentPlaceholder() {
+        return argumentPlaceholder;
+    }
+
+    /**
+     * Renders a {@link Syntax#SEQUENTIAL} template, filling {@code {}} with the arguments in order.
+     */
+    public String format(Object... args) {
+        return render(args, NO_RETURN_VALUE);
+    }
+
+    /**
+     * Renders the template, leaving return value placeholders as written.
+     */
+    public String render(Object[] args) {
+        return render(args, NO_RETURN_VALUE);
+    }
+
+    /**
+     * Renders the template with arguments and a return value.
+     */
+    public String render(Object[] args, Object returnValue) {
+        if (placeholders.length == 0) {
+            return template;
+        }
+        final int argCount = args == null ? 0 : args.length;
+        final StringBuilder sb = new StringBuilder(literalLength + 16 * placeholders.length);
+        int nextSequential = 0;
+        for (int i = 0; i < placeholders.length; i++) {
+            sb.append(literals[i]);
+            final int placeholder = placeholders[i];
+            if (placeholder == SEQUENTIAL_ARG) {
+                if (nextSequential < argCount) {
+                    ArgRenderers.render(args[nextSequential++], sb);
+                } else {
+                    sb.append(placeholderTexts[i]);
+                }
+            } else if (placeholder == RETURN_VALUE) {
+                if (returnValue != NO_RETURN_VALUE) {
+                    ArgRenderers.render(returnValue, sb);
+                } else {
+                    sb.append(placeholderTexts[i]);
+                }
+            } else if (placeholder < argCount) {
+                ArgRenderers.render(args[placeholder], sb);
+            } else {
+                sb.append(placeholderTexts[i]);
+            }
+        }
+        sb.append(literals[placeholders.length]);
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    private static MessageTemplate parse(String template, Syntax syntax) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> placeholders = new ArrayList<>();
+        List<String> placeholderTexts = new ArrayList<>();
+        int literalStart = 0;
+        int open = template.indexOf('{');
+        while (open >= 0) {
+            int close = template.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+            int placeholder = placeholderOf(template, open + 1, close, syntax);
+            if (placeholder == Integer.MIN_VALUE) {
+                // Not a placeholder; a later '{' may still start one
+                open = template.indexOf('{', open + 1);
+                continue;
+            }
+            literals.add(template.substring(literalStart, open));
+            placeholders.add(placeholder);
+            placeholderTexts.add(template.substring(open, close + 1));
+            literalStart = close + 1;
+            open = template.indexOf('{', literalStart);
+        }
+        literals.add(template.substring(literalStart));
+        int[] placeholderArray = new int[placeholders.size()];
+        for (int i = 0; i < placeholderArray.length; i++) {
+            placeholderArray[i] = placeholders.get(i);
+        }
+        return new MessageTemplate(template, literals.toArray(String[]::new), placeholderArray, placeholderTexts.toArray(String[]::new));
+    }
+
+    /**
+     * @return placeholder kind of the text between the braces, or {@link Integer#MIN_VALUE} if it is none
+     */
+    private static int placeholderOf(String template, int start, int end, Syntax syntax) {
+        if (syntax == Syntax.SEQUENTIAL) {
+            return start == end ? SEQUENTIAL_ARG : Integer.MIN_VALUE;
+        }
+        if (start == end) {
+            return Integer.MIN_VALUE;
+        }
+        String content = template.substring(start, end);
+        if (content.equalsIgnoreCase("r") || content.equalsIgnoreCase("return")) {
+            return RETURN_VALUE;
+        }
+        int index = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c < '0' || c > '9' || index > (Integer.MAX_VALUE - 9) / 10) {
+                return Integer.MIN_VALUE;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+}
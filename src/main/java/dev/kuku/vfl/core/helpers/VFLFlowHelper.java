@@ -1,14 +1,17 @@
 package dev.kuku.vfl.core.helpers;
 
 import dev.kuku.vfl.core.buffer.VFLBuffer;
+import dev.kuku.vfl.core.models.Attributes;
 import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
+import dev.kuku.vfl.core.helpers.clock.VFLClocks;
+import dev.kuku.vfl.core.helpers.pool.VFLEventPool;
 import dev.kuku.vfl.core.models.logs.Log;
-import dev.kuku.vfl.core.models.logs.SubBlockStartLog;
+import dev.kuku.vfl.core.models.logs.LogType;
 import dev.kuku.vfl.core.models.logs.enums.LogTypeBlockStartEnum;
 import dev.kuku.vfl.core.models.logs.enums.LogTypeEnum;
 import dev.kuku.vfl.core.VFL;
 
-import java.time.Instant;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -16,20 +19,120 @@ import static dev.kuku.vfl.core.helpers.VFLHelper.UID;
 
 public class VFLFlowHelper {
 
-    public static Log CreateLogAndPush2Buffer(String blockId, String parentLogId, LogTypeEnum logType, String message, VFLBuffer buffer) {
-        Log l = new Log(UID(), blockId, parentLogId, logType, message, Instant.now().toEpochMilli());
-        buffer.pushLogToBuffer(l);
-        return l;
+    /**
+     * Creates a log and pushes it to the buffer.
+     * <p>Returns only the ID: once pushed, the log may be flushed and recycled by {@link VFLEventPool}
+     * at any time, so callers must not hold on to the object.</p>
+     *
+     * @return ID of the created log
+     */
+    public static VFLId CreateLogAndPush2Buffer(VFLId blockId, VFLId parentLogId, LogTypeEnum logType, String message, VFLBuffer buffer) {
+        return CreateLogAndPush2Buffer(blockId, parentLogId, logType, message, null, buffer);
     }
 
-    public static SubBlockStartLog CreateLogAndPush2Buffer(String blockId, String parentLogId, String startMessage, String referencedBlockId, LogTypeBlockStartEnum logType, VFLBuffer buffer) {
-        SubBlockStartLog l = new SubBlockStartLog(UID(), blockId, parentLogId, startMessage, referencedBlockId, logType);
-        buffer.pushLogToBuffer(l);
-        return l;
+    /**
+     * Same as {@link #CreateLogAndPush2Buffer(VFLId, VFLId, LogTypeEnum, String, VFLBuffer)} with typed attributes.
+     *
+     * @param attributes attributes of the log, may be null
+     */
+    public static VFLId CreateLogAndPush2Buffer(VFLId blockId, VFLId parentLogId, LogTypeEnum logType, String message, Attributes attributes, VFLBuffer buffer) {
+        return CreateLogAndPush2Buffer(blockId, null, parentLogId, logType, message, attributes, buffer);
     }
 
-    public static Block CreateBlockAndPush2Buffer(String blockName, String parentBlockId, VFLBuffer buffer) {
-        Block b = new Block(UID(), parentBlockId, blockName);
+    /**
+     * Same as {@link #CreateLogAndPush2Buffer(VFLId, VFLId, LogTypeEnum, String, Attributes, VFLBuffer)} for a log of
+     * the given block, carrying the block's {@linkplain Block#getTraceId() trace}.
+     */
+    public static VFLId CreateLogAndPush2Buffer(Block block, VFLId parentLogId, LogTypeEnum logType, String message, Attributes attributes, VFLBuffer buffer) {
+        return CreateLogAndPush2Buffer(block.getId(), block.getTraceId(), parentLogId, logType, message, attributes, buffer);
+    }
+
+    private static VFLId CreateLogAndPush2Buffer(VFLId blockId, VFLId traceId, VFLId parentLogId, LogTypeEnum logType, String message, Attributes attributes, VFLBuffer buffer) {
+        VFLId id = UID();
+        Log log = VFLEventPool.log(id, blockId, parentLogId, LogType.of(logType), message, VFLClocks.current().currentTimeMillis());
+        log.setAttributes(attributes);
+        log.setTraceId(traceId);
+        buffer.pushLogToBuffer(log);
+        return id;
+    }
+
+    /**
+     * Creates a log whose message is formatted from the template and arguments only when it is read,
+     * normally in the flush pipeline, and pushes it to the buffer.
+     *
+     * @return ID of the created log
+     */
+    public static VFLId CreateDeferredLogAndPush2Buffer(VFLId blockId, VFLId parentLogId, LogTypeEnum logType, String messageTemplate, Object[] args, Attributes attributes, VFLBuffer buffer) {
+        return CreateDeferredLogAndPush2Buffer(blockId, null, parentLogId, logType, messageTemplate, args, attributes, buffer);
+    }
+
+    /**
+     * Same as {@link #CreateDeferredLogAndPush2Buffer(VFLId, VFLId, LogTypeEnum, String, Object[], Attributes, VFLBuffer)}
+     * for a log of the given block, carrying the block's {@linkplain Block#getTraceId() trace}.
+     */
+    public static VFLId CreateDeferredLogAndPush2Buffer(Block block, VFLId parentLogId, LogTypeEnum logType, String messageTemplate, Object[] args, Attributes attributes, VFLBuffer buffer) {
+        return CreateDeferredLogAndPush2Buffer(block.getId(), block.getTraceId(), parentLogId, logType, messageTemplate, args, attributes, buffer);
+    }
+
+    private static VFLId CreateDeferredLogAndPush2Buffer(VFLId blockId, VFLId traceId, VFLId parentLogId, LogTypeEnum logType, String messageTemplate, Object[] args, Attributes attributes, VFLBuffer buffer) {
+        VFLId id = UID();
+        Log log = VFLEventPool.deferredLog(id, blockId, parentLogId, LogType.of(logType), messageTemplate, args, VFLClocks.current().currentTimeMillis());
+        log.setAttributes(attributes);
+        log.setTraceId(traceId);
+        buffer.pushLogToBuffer(log);
+        return id;
+    }
+
+    /**
+     * Creates a sub block start log and pushes it to the buffer.
+     *
+     * @return ID of the created log
+     * @see #CreateLogAndPush2Buffer(VFLId, VFLId, LogTypeEnum, String, VFLBuffer)
+     */
+    public static VFLId CreateLogAndPush2Buffer(VFLId blockId, VFLId parentLogId, String startMessage, VFLId referencedBlockId, LogTypeBlockStartEnum logType, VFLBuffer buffer) {
+        return CreateLogAndPush2Buffer(blockId, null, parentLogId, startMessage, referencedBlockId, logType, buffer);
+    }
+
+    /**
+     * Same as {@link #CreateLogAndPush2Buffer(VFLId, VFLId, String, VFLId, LogTypeBlockStartEnum, VFLBuffer)} for a log of
+     * the given block, carrying the block's {@linkplain Block#getTraceId() trace}.
+     */
+    public static VFLId CreateLogAndPush2Buffer(Block block, VFLId parentLogId, String startMessage, VFLId referencedBlockId, LogTypeBlockStartEnum logType, VFLBuffer buffer) {
+        return CreateLogAndPush2Buffer(block.getId(), block.getTraceId(), parentLogId, startMessage, referencedBlockId, logType, buffer);
+    }
+
+    private static VFLId CreateLogAndPush2Buffer(VFLId blockId, VFLId traceId, VFLId parentLogId, String startMessage, VFLId referencedBlockId, LogTypeBlockStartEnum logType, VFLBuffer buffer) {
+        VFLId id = UID();
+        Log log = VFLEventPool.subBlockStartLog(id, blockId, parentLogId, LogType.of(logType), startMessage, VFLClocks.current().currentTimeMillis(), referencedBlockId);
+        log.setTraceId(traceId);
+        buffer.pushLogToBuffer(log);
+        return id;
+    }
+
+    public static Block CreateBlockAndPush2Buffer(String blockName, VFLId parentBlockId, VFLBuffer buffer) {
+        return CreateBlockAndPush2Buffer(blockName, parentBlockId, null, buffer);
+    }
+
+    /**
+     * @param attributes attributes of the block, may be null
+     */
+    public static Block CreateBlockAndPush2Buffer(String blockName, VFLId parentBlockId, Attributes attributes, VFLBuffer buffer) {
+        Block b = new Block(UID(), parentBlockId, blockName, attributes);
+        buffer.pushBlockToBuffer(b);
+        return b;
+    }
+
+    public static Block CreateChildBlockAndPush2Buffer(String blockName, Block parentBlock, VFLBuffer buffer) {
+        return CreateChildBlockAndPush2Buffer(blockName, parentBlock, null, buffer);
+    }
+
+    /**
+     * Creates a block under the given parent, in the parent's {@linkplain Block#getTraceId() trace}, and pushes it to the buffer.
+     *
+     * @param attributes attributes of the block, may be null
+     */
+    public static Block CreateChildBlockAndPush2Buffer(String blockName, Block parentBlock, Attributes attributes, VFLBuffer buffer) {
+        Block b = new Block(UID(), parentBlock.getId(), blockName, attributes, parentBlock.getTraceId());
         buffer.pushBlockToBuffer(b);
         return b;
     }
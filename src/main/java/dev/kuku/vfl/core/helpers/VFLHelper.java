@@ -1,13 +1,14 @@
 package dev.kuku.vfl.core.helpers;
 
+import dev.kuku.vfl.core.helpers.idGenerator.VFLIdGenerators;
+import dev.kuku.vfl.core.helpers.render.ArgRenderers;
+import dev.kuku.vfl.core.models.Attributes;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.impl.annotation.SubBlock;
-import com.fasterxml.uuid.Generators;
-import com.fasterxml.uuid.impl.TimeBasedEpochGenerator;
+import dev.kuku.vfl.impl.annotation.SubBlockDescriptor;
 
 import java.lang.reflect.Method;
 import java.util.function.Function;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Utility methods for Visual Flow Logger (VFL) operations.
@@ -22,42 +23,25 @@ import java.util.regex.Pattern;
  */
 public class VFLHelper {
 
-    // Regex for {0}, {1}, etc.
-    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{(\\d+)}");
-    // Regex for {r} or {return} placeholders
-    private static final Pattern RETURN_PLACEHOLDER_PATTERN =
-            Pattern.compile("\\{r(?:eturn)?}", Pattern.CASE_INSENSITIVE);
-
-    // UUID v7 generator (time-based with Unix timestamp)
-    private static final TimeBasedEpochGenerator UUID_V7_GENERATOR = Generators.timeBasedEpochGenerator();
-
     /**
-     * Generates a UUID v7 (time-based with Unix timestamp) for better sorting and indexing.
+     * Generates a time-sortable ID using the configured {@link VFLIdGenerators} strategy.
      *
-     * @return UUID v7 as string
+     * @return ID in binary form; rendered to text only when serialized
      */
-    public static String UID() {
-        return UUID_V7_GENERATOR.generate().toString();
+    public static VFLId UID() {
+        return VFLIdGenerators.next();
     }
 
     /**
      * Formats a SLF4J-style message string with "{}" placeholders.
+     *
+     * @see MessageTemplate
      */
     public static String FormatMessage(String message, Object... args) {
         if (args == null || args.length == 0 || message == null) {
             return message;
         }
-
-        String result = message;
-        for (Object arg : args) {
-            if (result.contains("{}")) {
-                result = result.replaceFirst("\\{}",
-                        arg == null ? "null" : String.valueOf(arg));
-            } else {
-                break;
-            }
-        }
-        return result;
+        return MessageTemplate.compile(message, MessageTemplate.Syntax.SEQUENTIAL).format(args);
     }
 
     /**
@@ -78,6 +62,10 @@ public class VFLHelper {
         return String.format("[Thread: %s (ID: %d)]", currentThread.getName(), currentThread.threadId());
     }
 
+    public static String TrimId(VFLId fullId) {
+        return fullId == null ? "null" : fullId.toShortString();
+    }
+
     public static String TrimId(String fullId) {
         if (fullId == null) return "null";
         String[] parts = fullId.split("-");
@@ -99,26 +87,7 @@ public class VFLHelper {
         if (text == null || args == null || args.length == 0) {
             return text;
         }
-        Matcher matcher = PLACEHOLDER_PATTERN.matcher(text);
-        StringBuilder sb = new StringBuilder();
-        while (matcher.find()) {
-            int index;
-            try {
-                index = Integer.parseInt(matcher.group(1));
-            } catch (NumberFormatException e) {
-                continue;
-            }
-            String replacement;
-            if (index >= 0 && index < args.length) {
-                Object arg = args[index];
-                replacement = (arg == null) ? "null" : arg.toString();
-            } else {
-                replacement = matcher.group(0);
-            }
-            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
-        }
-        matcher.appendTail(sb);
-        return sb.toString();
+        return MessageTemplate.compile(text, MessageTemplate.Syntax.INDEXED).render(args);
     }
 
     /**
@@ -128,58 +97,49 @@ public class VFLHelper {
         if (text == null) {
             return null;
         }
-        String replacement = (returnedValue == null) ? "null" : returnedValue.toString();
-        return RETURN_PLACEHOLDER_PATTERN.matcher(text)
-                .replaceAll(Matcher.quoteReplacement(replacement));
+        return MessageTemplate.compile(text, MessageTemplate.Syntax.INDEXED).render(null, returnedValue);
     }
 
     /**
      * Resolves block name from annotation or method signature.
      */
     public static String ResolveBlockName(Method method, Object[] args) {
-        SubBlock annotation = method.getAnnotation(SubBlock.class);
-        String rawName = (annotation != null && isValid(annotation.blockName()))
-                ? annotation.blockName().trim()
-                : GetMethodName(method, args);
-        return ReplaceArgPlaceholders(rawName, args);
+        return SubBlockDescriptor.of(method).resolveBlockName(args);
     }
 
     /**
      * Resolves start message from annotation.
      */
     public static String ResolveStartMessage(Method method, Object[] args) {
-        SubBlock annotation = method.getAnnotation(SubBlock.class);
-        if (annotation != null && isValid(annotation.startMessage())) {
-            String msg = annotation.startMessage().trim();
-            return ReplaceArgPlaceholders(msg, args);
-        }
-        return null;
+        return SubBlockDescriptor.of(method).resolveStartMessage(args);
     }
 
     /**
      * Resolves end message from annotation with added return value.
      */
     public static String ResolveEndMessage(Method method, Object[] args, Object returnedValue) {
-        SubBlock annotation = method.getAnnotation(SubBlock.class);
-        if (annotation != null && isValid(annotation.endMessage())) {
-            String msg = annotation.endMessage().trim();
-            msg = ReplaceArgPlaceholders(msg, args);
-            msg = ReplaceReturnPlaceholder(msg, returnedValue);
-            return msg;
-        }
-        return null;
+        return SubBlockDescriptor.of(method).resolveEndMessage(args, returnedValue);
     }
 
-    private static boolean isValid(String str) {
-        return str != null && !str.trim().isEmpty();
+    /**
+     * Resolves block attributes from {@link SubBlock#attributes()}.
+     *
+     * @return null if the annotation declares no attributes
+     * @see SubBlockDescriptor#resolveAttributes(Object[])
+     */
+    public static Attributes ResolveAttributes(Method method, Object[] args) {
+        return SubBlockDescriptor.of(method).resolveAttributes(args);
     }
 
+    /**
+     * Default block name: the method name with its arguments, each rendered through {@link ArgRenderers}.
+     */
     public static String GetMethodName(Method method, Object[] args) {
         StringBuilder sb = new StringBuilder(method.getName()).append('(');
         if (args != null) {
             for (int i = 0; i < args.length; i++) {
                 if (i > 0) sb.append(", ");
-                sb.append(args[i]);
+                ArgRenderers.render(args[i], sb);
             }
         }
         return sb.append(')').toString();
@@ -0,0 +1,198 @@
+package dev.kuku.vfl.core.helpers;
+
+import dev.kuku.vfl.core.models.logs.enums.LogTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Minimum log levels, globally and per package or class.
+ *
+ * <p>A log call below its minimum level returns before its message is formatted, its block is
+ * started or an ID is generated. The lowest and highest configured minimums are held in
+ * {@link MutableCallSite}s, so the JIT treats them as constants and a call below every minimum (or
+ * above every minimum) compiles down to nothing but a comparison. Changing a level invalidates the
+ * compiled code. Only when the level of a call lies between the configured minimums is the calling
+ * class looked up; its minimum is then cached per class.</p>
+ *
+ * <p>The global minimum defaults to {@link LogTypeEnum#MESSAGE} (DEBUG and TRACE disabled) and can be
+ * set on startup with the system property {@code vfl.level}, e.g. {@code -Dvfl.level=DEBUG}.</p>
+ *
+ * <h2>Example:</h2>
+ * <pre>{@code
+ * VFLLogLevels.setMinimumLevel(LogTypeEnum.WARN);
+ * VFLLogLevels.setMinimumLevel("com.acme.payment", LogTypeEnum.TRACE);
+ * }</pre>
+ */
+@Slf4j
+public final class VFLLogLevels {
+
+    private static final String[] API_PACKAGES = {"dev.kuku.vfl.core.", "dev.kuku.vfl.impl."};
+    private static final StackWalker CALLER_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private static final MutableCallSite LOWEST_MINIMUM = new MutableCallSite(MethodHandles.constant(int.class, 0));
+    private static final MutableCallSite HIGHEST_MINIMUM = new MutableCallSite(MethodHandles.constant(int.class, 0));
+    private static final MethodHandle LOWEST_MINIMUM_INVOKER = LOWEST_MINIMUM.dynamicInvoker();
+    private static final MethodHandle HIGHEST_MINIMUM_INVOKER = HIGHEST_MINIMUM.dynamicInvoker();
+
+    private static final Map<String, LogTypeEnum> minimumByName = new ConcurrentHashMap<>();
+    private static volatile LogTypeEnum globalMinimum = LogTypeEnum.MESSAGE;
+    private static volatile ClassValue<LogTypeEnum> minimumByClass = newClassCache();
+
+    static {
+        String configured = System.getProperty("vfl.level");
+        if (configured != null) {
+            try {
+                globalMinimum = parse(configured);
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring unknown vfl.level '{}'", configured);
+            }
+        }
+        update();
+    }
+
+    private VFLLogLevels() {
+    }
+
+    /**
+     * @return true if a log of the given level from the calling code should be recorded
+     */
+    public static boolean isEnabled(LogTypeEnum level) {
+        final int severity = level.getSeverity();
+        if (severity < lowestMinimum()) {
+            return false;
+        }
+        if (severity >= highestMinimum()) {
+            return true;
+        }
+        return level.isAtLeast(minimumByClass.get(callerClass()));
+    }
+
+    /**
+     * @return true if a log of the given level from the given class should be recorded
+     */
+    public static boolean isEnabled(LogTypeEnum level, Class<?> caller) {
+        return level.isAtLeast(minimumByClass.get(caller));
+    }
+
+    public static LogTypeEnum getMinimumLevel() {
+        return globalMinimum;
+    }
+
+    public static synchronized void setMinimumLevel(LogTypeEnum level) {
+        globalMinimum = level;
+        update();
+    }
+
+    /**
+     * Sets the minimum level for a package (including sub packages) or a fully qualified class name.
+     * The most specific name wins.
+     */
+    public static synchronized void setMinimumLevel(String packageOrClassName, LogTypeEnum level) {
+        minimumByName.put(packageOrClassName, level);
+        update();
+    }
+
+    public static synchronized void clearMinimumLevel(String packageOrClassName) {
+        minimumByName.remove(packageOrClassName);
+        update();
+    }
+
+    /**
+     * Removes all package and class minimums and restores the default global minimum.
+     */
+    public static synchronized void reset() {
+        minimumByName.clear();
+        globalMinimum = LogTypeEnum.MESSAGE;
+        update();
+    }
+
+    private static LogTypeEnum parse(String level) {
+        String normalized = level.trim().toUpperCase();
+        return "INFO".equals(normalized) ? LogTypeEnum.MESSAGE : LogTypeEnum.valueOf(normalized);
+    }
+
+    private static void update() {
+        int lowest = globalMinimum.getSeverity();
+        int highest = lowest;
+        for (LogTypeEnum level : minimumByName.values()) {
+            lowest = Math.min(lowest, level.getSeverity());
+            highest = Math.max(highest, level.getSeverity());
+        }
+        minimumByClass = newClassCache();
+        LOWEST_MINIMUM.setTarget(MethodHandles.constant(int.class, lowest));
+        HIGHEST_MINIMUM.setTarget(MethodHandles.constant(int.class, highest));
+        MutableCallSite.syncAll(new MutableCallSite[]{LOWEST_MINIMUM, HIGHEST_MINIMUM});
+    }
+
+    private static ClassValue<LogTypeEnum> newClassCache() {
+        return new ClassValue<>() {
+            @Override
+            protected LogTypeEnum computeValue(Class<?> type) {
+                return resolve(type.getName());
+            }
+        };
+    }
+
+    /**
+     * Walks up the class name's dotted prefixes and returns the first configured minimum.
+     */
+    private static LogTypeEnum resolve(String className) {
+        String name = className;
+        while (true) {
+            LogTypeEnum level = minimumByName.get(name);
+            if (level != null) {
+                return level;
+            }
+            int lastDot = name.lastIndexOf('.');
+            int lastDollar = name.lastIndexOf('$');
+            int cut = Math.max(lastDot, lastDollar);
+            if (cut < 0) {
+                return globalMinimum;
+            }
+            name = name.substring(0, cut);
+        }
+    }
+
+    /**
+     * @return first class on the stack outside of the VFL API, i.e. the code that made the log call
+     */
+    private static Class<?> callerClass() {
+        Optional<Class<?>> caller = CALLER_WALKER.walk(frames -> frames
+                .<Class<?>>map(StackWalker.StackFrame::getDeclaringClass)
+                .filter(type -> !isApiClass(type))
+                .findFirst());
+        return caller.orElse(VFLLogLevels.class);
+    }
+
+    private static boolean isApiClass(Class<?> type) {
+        String name = type.getName();
+        for (String apiPackage : API_PACKAGES) {
+            if (name.startsWith(apiPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int lowestMinimum() {
+        try {
+            return (int) LOWEST_MINIMUM_INVOKER.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int highestMinimum() {
+        try {
+            return (int) HIGHEST_MINIMUM_INVOKER.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package dev.kuku.vfl.core.helpers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process counters of blocks that ended over their SLA, overall and per block name.
+ *
+ * <p>Counting is contention-free ({@link LongAdder}), so it is safe to scrape from a metrics exporter
+ * while many threads close blocks. Only the first {@link #MAX_TRACKED_NAMES} block names get their own
+ * counter, which keeps names with rendered arguments from growing the map without bound; breaches of
+ * other names only count towards {@link #total()}.</p>
+ */
+public final class VFLSlaBreaches {
+
+    public static final int MAX_TRACKED_NAMES = 1024;
+
+    private static final LongAdder total = new LongAdder();
+    private static final Map<String, LongAdder> byBlockName = new ConcurrentHashMap<>();
+
+    private VFLSlaBreaches() {
+    }
+
+    /**
+     * Counts one SLA breach of the given block.
+     */
+    public static void record(String blockName) {
+        total.increment();
+        if (blockName == null) {
+            return;
+        }
+        LongAdder counter = byBlockName.get(blockName);
+        if (counter == null) {
+            if (byBlockName.size() >= MAX_TRACKED_NAMES) {
+                return;
+            }
+            counter = byBlockName.computeIfAbsent(blockName, ignored -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    /**
+     * @return SLA breaches of all blocks since start or the last {@link #reset()}
+     */
+    public static long total() {
+        return total.sum();
+    }
+
+    /**
+     * @return SLA breaches of blocks with the given name, 0 if the name isn't tracked
+     */
+    public static long count(String blockName) {
+        LongAdder counter = byBlockName.get(blockName);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * @return current count per tracked block name
+     */
+    public static Map<String, Long> snapshot() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        byBlockName.forEach((name, counter) -> result.put(name, counter.sum()));
+        return result;
+    }
+
+    public static void reset() {
+        total.reset();
+        byBlockName.clear();
+    }
+}
@@ -0,0 +1,49 @@
+package dev.kuku.vfl.core.helpers.clock;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coarse clock whose millisecond timestamp is refreshed by a background ticker thread.
+ *
+ * <p>Reading the time is a single volatile read, at the cost of timestamps lagging by up to one tick.
+ * Durations still use {@link System#nanoTime()} and stay precise.</p>
+ */
+public class CachedClock implements VFLClock, AutoCloseable {
+
+    private final long tickNanos;
+    private final Thread ticker;
+    private volatile long currentMillis = System.currentTimeMillis();
+    private volatile boolean running = true;
+
+    /**
+     * @param tick how often the cached timestamp is refreshed, e.g. 1ms
+     */
+    public CachedClock(Duration tick) {
+        this.tickNanos = tick.toNanos();
+        this.ticker = new Thread(this::tick, "vfl-clock-ticker");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return currentMillis;
+    }
+
+    /**
+     * Stops the ticker thread; the clock keeps returning the last cached value.
+     */
+    @Override
+    public void close() {
+        running = false;
+        ticker.interrupt();
+    }
+
+    private void tick() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            currentMillis = System.currentTimeMillis();
+            LockSupport.parkNanos(tickNanos);
+        }
+    }
+}
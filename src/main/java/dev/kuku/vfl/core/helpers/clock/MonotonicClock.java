@@ -0,0 +1,24 @@
+package dev.kuku.vfl.core.helpers.clock;
+
+/**
+ * High-resolution clock derived from a single wall-clock anchor plus {@link System#nanoTime()} deltas.
+ *
+ * <p>Timestamps never go backwards (e.g., on NTP adjustments) and are consistent with the
+ * nanosecond durations measured for blocks. They drift from the wall clock by however much the
+ * system clock is adjusted after the anchor was taken.</p>
+ */
+public class MonotonicClock implements VFLClock {
+
+    private final long anchorMillis;
+    private final long anchorNanos;
+
+    public MonotonicClock() {
+        this.anchorMillis = System.currentTimeMillis();
+        this.anchorNanos = System.nanoTime();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return anchorMillis + (System.nanoTime() - anchorNanos) / 1_000_000;
+    }
+}
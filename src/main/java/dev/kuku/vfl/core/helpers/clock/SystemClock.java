@@ -0,0 +1,12 @@
+package dev.kuku.vfl.core.helpers.clock;
+
+/**
+ * Reads {@link System#currentTimeMillis()} on every call.
+ */
+public class SystemClock implements VFLClock {
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
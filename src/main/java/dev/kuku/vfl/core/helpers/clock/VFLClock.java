@@ -0,0 +1,23 @@
+package dev.kuku.vfl.core.helpers.clock;
+
+/**
+ * Time source for log timestamps and block durations.
+ *
+ * <p>Called on every log call, so implementations must be cheap, thread-safe and allocation-free.
+ * Install one via {@link VFLClocks#use(VFLClock)}.</p>
+ */
+public interface VFLClock {
+
+    /**
+     * @return wall-clock time in epoch millis, used for timestamps
+     */
+    long currentTimeMillis();
+
+    /**
+     * @return monotonic nanoseconds with an arbitrary origin, only meaningful as a difference;
+     * used to measure block durations
+     */
+    default long nanoTime() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,28 @@
+package dev.kuku.vfl.core.helpers.clock;
+
+import java.util.Objects;
+
+/**
+ * Holds the {@link VFLClock} used for all timestamps and block durations.
+ *
+ * <p>Defaults to a {@link SystemClock}. Switch clocks early, before tracing starts:
+ * <pre>{@code
+ * VFLClocks.use(new CachedClock(Duration.ofMillis(1)));   // cheapest timestamps
+ * VFLClocks.use(new MonotonicClock());                     // never goes backwards
+ * }</pre>
+ */
+public final class VFLClocks {
+
+    private static volatile VFLClock current = new SystemClock();
+
+    private VFLClocks() {
+    }
+
+    public static void use(VFLClock clock) {
+        current = Objects.requireNonNull(clock, "clock");
+    }
+
+    public static VFLClock current() {
+        return current;
+    }
+}
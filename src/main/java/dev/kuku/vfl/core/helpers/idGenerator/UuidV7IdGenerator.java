@@ -0,0 +1,21 @@
+package dev.kuku.vfl.core.helpers.idGenerator;
+
+import com.fasterxml.uuid.Generators;
+import com.fasterxml.uuid.impl.TimeBasedEpochGenerator;
+import dev.kuku.vfl.core.models.VFLId;
+
+/**
+ * Random UUIDv7 IDs from a single shared {@link TimeBasedEpochGenerator}.
+ *
+ * <p>The generator synchronizes internally, so all threads contend on it. Fine for low thread counts;
+ * prefer {@link StripedIdGenerator} under heavy concurrent logging.</p>
+ */
+public class UuidV7IdGenerator implements VFLIdGenerator {
+
+    private final TimeBasedEpochGenerator generator = Generators.timeBasedEpochGenerator();
+
+    @Override
+    public VFLId next() {
+        return VFLId.of(generator.generate());
+    }
+}
@@ -0,0 +1,15 @@
+package dev.kuku.vfl.core.helpers.idGenerator;
+
+import dev.kuku.vfl.core.models.VFLId;
+
+/**
+ * Strategy creating the IDs of blocks and logs.
+ *
+ * <p>Called on every log call from any thread, so implementations must be thread-safe and should
+ * avoid shared locks. Generated IDs must be unique across threads and JVMs and should sort roughly
+ * by creation time. Install a custom strategy via {@link VFLIdGenerators#use(VFLIdGenerator)}.</p>
+ */
+@FunctionalInterface
+public interface VFLIdGenerator {
+    VFLId next();
+}
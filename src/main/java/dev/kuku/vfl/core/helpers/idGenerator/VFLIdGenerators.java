@@ -0,0 +1,33 @@
+package dev.kuku.vfl.core.helpers.idGenerator;
+
+import dev.kuku.vfl.core.models.VFLId;
+
+import java.util.Objects;
+
+/**
+ * Holds the {@link VFLIdGenerator} used for all blocks and logs.
+ *
+ * <p>Defaults to a {@link StripedIdGenerator}. Switch strategies early, before tracing starts:
+ * <pre>{@code
+ * VFLIdGenerators.use(new UuidV7IdGenerator());
+ * }</pre>
+ */
+public final class VFLIdGenerators {
+
+    private static volatile VFLIdGenerator current = new StripedIdGenerator();
+
+    private VFLIdGenerators() {
+    }
+
+    public static void use(VFLIdGenerator generator) {
+        current = Objects.requireNonNull(generator, "generator");
+    }
+
+    public static VFLIdGenerator current() {
+        return current;
+    }
+
+    public static VFLId next() {
+        return current.next();
+    }
+}
@@ -0,0 +1,121 @@
+package dev.kuku.vfl.core.helpers.pool;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, lock-free and allocation-free object pool.
+ *
+ * <p>Objects are kept in several stripes, each a bounded multi-producer/multi-consumer ring with a
+ * sequence number per slot. Threads acquire from the stripe matching their ID first and only look at
+ * the other stripes when it is empty. Releases (mostly done by flush threads) are spread round-robin.
+ * If no pooled object is available a new one is created; if every stripe is full a released object is
+ * left to the garbage collector. Neither case ever blocks.</p>
+ */
+final class ObjectPool<T> {
+
+    private final Ring<T>[] stripes;
+    private final int stripeMask;
+    private final Supplier<T> factory;
+    private final AtomicInteger releaseCursor = new AtomicInteger();
+
+    /**
+     * @param capacity max pooled objects overall
+     */
+    @SuppressWarnings("unchecked")
+    ObjectPool(int capacity, Supplier<T> factory) {
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        this.stripes = (Ring<T>[]) new Ring<?>[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Ring<>(Math.max(2, capacity / stripeCount));
+        }
+        this.stripeMask = stripeCount - 1;
+        this.factory = factory;
+    }
+
+    T acquire() {
+        int start = (int) Thread.currentThread().threadId();
+        for (int i = 0; i <= stripeMask; i++) {
+            T pooled = stripes[(start + i) & stripeMask].poll();
+            if (pooled != null) {
+                return pooled;
+            }
+        }
+        return factory.get();
+    }
+
+    void release(T object) {
+        int start = releaseCursor.getAndIncrement();
+        for (int i = 0; i <= stripeMask; i++) {
+            if (stripes[(start + i) & stripeMask].offer(object)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Bounded MPMC ring: slot {@code i} is writable when its sequence equals the enqueue position
+     * and readable when it equals the dequeue position + 1.
+     */
+    private static final class Ring<T> {
+        private final AtomicReferenceArray<T> items;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong enqueuePosition = new AtomicLong();
+        private final AtomicLong dequeuePosition = new AtomicLong();
+
+        Ring(int capacity) {
+            int size = Integer.highestOneBit(capacity - 1) << 1;
+            this.items = new AtomicReferenceArray<>(size);
+            this.sequences = new AtomicLongArray(size);
+            this.mask = size - 1;
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(T item) {
+            long position = enqueuePosition.get();
+            while (true) {
+                int index = (int) (position & mask);
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (enqueuePosition.compareAndSet(position, position + 1)) {
+                        items.set(index, item);
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                    position = enqueuePosition.get();
+                } else if (difference < 0) {
+                    return false; // full
+                } else {
+                    position = enqueuePosition.get();
+                }
+            }
+        }
+
+        T poll() {
+            long position = dequeuePosition.get();
+            while (true) {
+                int index = (int) (position & mask);
+                long difference = sequences.get(index) - (position + 1);
+                if (difference == 0) {
+                    if (dequeuePosition.compareAndSet(position, position + 1)) {
+                        T item = items.get(index);
+                        items.set(index, null);
+                        sequences.set(index, position + mask + 1);
+                        return item;
+                    }
+                    position = dequeuePosition.get();
+                } else if (difference < 0) {
+                    return null; // empty
+                } else {
+                    position = dequeuePosition.get();
+                }
+            }
+        }
+    }
+}
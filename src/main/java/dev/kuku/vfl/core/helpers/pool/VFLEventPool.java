@@ -0,0 +1,144 @@
+package dev.kuku.vfl.core.helpers.pool;
+
+import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.models.VFLId;
+import dev.kuku.vfl.core.models.logs.Log;
+import dev.kuku.vfl.core.models.logs.LogType;
+import dev.kuku.vfl.core.models.logs.SubBlockStartLog;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Opt-in recycling of {@link Log}, {@link SubBlockStartLog} and {@link BlockEndData} objects.
+ *
+ * <p>When enabled, the logging path takes event objects from the pool instead of allocating them,
+ * and buffers return them once the flush handler has consumed them — only if the handler declares
+ * it does not keep references via
+ * {@link dev.kuku.vfl.core.buffer.flushHandler.VFLFlushHandler#retainsEvents()}.
+ * With a steady log rate, the same objects then circulate between the logging threads and the
+ * flush thread.</p>
+ *
+ * <p>Only instances created here are recycled; logs created through their public constructors never are.
+ * {@link dev.kuku.vfl.core.models.Block}s are not pooled because they stay referenced by the
+ * block context for the lifetime of the block.</p>
+ *
+ * <p>This removes the event objects from the per-log allocation, not all of it. Measured with a
+ * {@link dev.kuku.vfl.core.buffer.SynchronousBuffer} and a handler that retains nothing, a log allocates
+ * about 40 bytes instead of about 90: its {@link VFLId} and its share of the buffer's snapshot remain, see
+ * {@code VFLEventPoolAllocationTest}.</p>
+ *
+ * <p>Enable before tracing starts:
+ * <pre>{@code
+ * VFLEventPool.enable(16_384);
+ * }</pre>
+ */
+public final class VFLEventPool {
+
+    private static volatile ObjectPool<PooledLog> logs;
+    private static volatile ObjectPool<PooledSubBlockStartLog> subBlockStartLogs;
+    private static volatile ObjectPool<BlockEndData> blockEnds;
+    private static volatile boolean enabled = false;
+
+    private VFLEventPool() {
+    }
+
+    /**
+     * @param capacity max pooled objects of each kind; should cover the events buffered between two flushes
+     */
+    public static synchronized void enable(int capacity) {
+        logs = new ObjectPool<>(capacity, PooledLog::new);
+        subBlockStartLogs = new ObjectPool<>(capacity, PooledSubBlockStartLog::new);
+        blockEnds = new ObjectPool<>(capacity, BlockEndData::new);
+        enabled = true;
+    }
+
+    public static synchronized void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static Log log(VFLId id, VFLId blockId, VFLId parentLogId, LogType logType, String message, long timestamp) {
+        if (!enabled) {
+            return new Log(id, blockId, parentLogId, logType, message, timestamp);
+        }
+        PooledLog log = logs.acquire();
+        log.fill(id, blockId, parentLogId, logType, message, timestamp);
+        return log;
+    }
+
+    /**
+     * Log whose message is formatted from {@code messageTemplate} and {@code messageArgs} when first read.
+     */
+    public static Log deferredLog(VFLId id, VFLId blockId, VFLId parentLogId, LogType logType,
+                                  String messageTemplate, Object[] messageArgs, long timestamp) {
+        PooledLog log = enabled ? logs.acquire() : new PooledLog();
+        log.fillDeferred(id, blockId, parentLogId, logType, messageTemplate, messageArgs, timestamp);
+        return log;
+    }
+
+    public static SubBlockStartLog subBlockStartLog(VFLId id, VFLId blockId, VFLId parentLogId, LogType logType,
+                                                    String startMessage, long timestamp, VFLId referencedBlockId) {
+        PooledSubBlockStartLog log = enabled ? subBlockStartLogs.acquire() : new PooledSubBlockStartLog();
+        log.fill(id, blockId, parentLogId, logType, startMessage, timestamp, referencedBlockId);
+        return log;
+    }
+
+    public static BlockEndData blockEnd(long endTime, String endMessage, long durationNanos) {
+        if (!enabled) {
+            return new BlockEndData(endTime, endMessage, durationNanos);
+        }
+        BlockEndData endData = blockEnds.acquire();
+        endData.setEndTime(endTime);
+        endData.setEndMessage(endMessage);
+        endData.setDurationNanos(durationNanos);
+        return endData;
+    }
+
+    /**
+     * Returns flushed events to the pool. The caller must guarantee nothing references them anymore.
+     */
+    public static void release(List<Log> flushedLogs, Collection<BlockEndData> flushedEnds) {
+        if (!enabled) {
+            return;
+        }
+        for (Log log : flushedLogs) {
+            // Drop references so pooled objects don't keep messages or IDs alive
+            if (log instanceof PooledSubBlockStartLog pooled) {
+                pooled.fill(null, null, null, null, null, 0, null);
+                subBlockStartLogs.release(pooled);
+            } else if (log instanceof PooledLog pooled) {
+                pooled.fill(null, null, null, null, null, 0);
+                logs.release(pooled);
+            }
+        }
+        for (BlockEndData endData : flushedEnds) {
+            endData.setEndMessage(null);
+            blockEnds.release(endData);
+        }
+    }
+
+    /**
+     * Log the pool may rewrite; the rewriting methods of {@link Log} are not public.
+     */
+    private static final class PooledLog extends Log {
+        void fill(VFLId id, VFLId blockId, VFLId parentLogId, LogType logType, String message, long timestamp) {
+            init(id, blockId, parentLogId, logType, message, timestamp);
+        }
+
+        void fillDeferred(VFLId id, VFLId blockId, VFLId parentLogId, LogType logType,
+                          String messageTemplate, Object[] messageArgs, long timestamp) {
+            initDeferred(id, blockId, parentLogId, logType, messageTemplate, messageArgs, timestamp);
+        }
+    }
+
+    private static final class PooledSubBlockStartLog extends SubBlockStartLog {
+        void fill(VFLId id, VFLId blockId, VFLId parentLogId, LogType logType, String startMessage,
+                  long timestamp, VFLId referencedBlockId) {
+            init(id, blockId, parentLogId, logType, startMessage, timestamp, referencedBlockId);
+        }
+    }
+}
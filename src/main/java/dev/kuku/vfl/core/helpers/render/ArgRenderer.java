@@ -0,0 +1,15 @@
+package dev.kuku.vfl.core.helpers.render;
+
+/**
+ * Renders values of a type into log messages and block names, see {@link ArgRenderers}.
+ */
+@FunctionalInterface
+public interface ArgRenderer<T> {
+    /**
+     * Appends the rendering of {@code value} to {@code out}. Should stop appending once
+     * {@code out.length()} reaches {@code limit}; anything beyond it is cut off anyway.
+     *
+     * @param value never null
+     */
+    void render(T value, StringBuilder out, int limit);
+}
@@ -0,0 +1,315 @@
+package dev.kuku.vfl.core.helpers.render;
+
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link ArgRenderer}s used wherever arguments are turned into text: message placeholders,
+ * default block names and snapshots of deferred messages.
+ *
+ * <p>Renderings are bounded: at most {@link #getMaxLength()} characters per argument and
+ * {@link #getMaxElements()} elements per collection, map or array, so an argument such as a list of 100k
+ * items costs a few hundred characters instead of megabytes. Strings and other {@link CharSequence}s
+ * passed directly as arguments are the message text the caller chose and are appended in full; inside
+ * collections, maps and arrays they count towards the bound like any element. Built-in renderings:</p>
+ * <ul>
+ *   <li>collections, maps and arrays — first elements, then {@code ... (N total)}</li>
+ *   <li>{@code byte[]} — {@code byte[N]}, contents are never rendered</li>
+ *   <li>small integers and enum constants — cached strings, no allocation</li>
+ *   <li>anything else — {@code toString()}, truncated</li>
+ * </ul>
+ * <p>Truncation bounds the message, not the work: {@code toString()} still builds its whole string first.
+ * Register a renderer for types whose {@code toString()} is large or expensive.</p>
+ * <p>A {@code toString()} or renderer that throws is rendered as {@code <toString threw ExceptionName>}.</p>
+ * <p>Renderers registered for a class also apply to its subclasses and implementations; the closest
+ * registration wins. The renderer for each concrete class is resolved once and cached. Strings and
+ * other {@link CharSequence}s, small integers, booleans and enum constants always use the built-in rendering.</p>
+ *
+ * <h2>Example:</h2>
+ * <pre>{@code
+ * ArgRenderers.register(Order.class, (order, out, limit) -> out.append("Order#").append(order.getId()));
+ * }</pre>
+ */
+public final class ArgRenderers {
+
+    private static final String ELLIPSIS = "...";
+    private static final int CACHED_INT_MIN = -128;
+    private static final int CACHED_INT_MAX = 1023;
+    private static final String[] CACHED_INTS = new String[CACHED_INT_MAX - CACHED_INT_MIN + 1];
+
+    private static final Map<Class<?>, ArgRenderer<?>> registered = new ConcurrentHashMap<>();
+    private static volatile ClassValue<ArgRenderer<Object>> resolved = newResolvedCache();
+    private static final ClassValue<String[]> enumNames = new ClassValue<>() {
+        @Override
+        protected String[] computeValue(Class<?> type) {
+            Object[] constants = type.getEnumConstants();
+            String[] names = new String[constants.length];
+            for (int i = 0; i < constants.length; i++) {
+                names[i] = String.valueOf(constants[i]);
+            }
+            return names;
+        }
+    };
+
+    private static volatile int maxLength = 256;
+    private static volatile int maxElements = 16;
+
+    static {
+        for (int i = CACHED_INT_MIN; i <= CACHED_INT_MAX; i++) {
+            CACHED_INTS[i - CACHED_INT_MIN] = Integer.toString(i);
+        }
+    }
+
+    private ArgRenderers() {
+    }
+
+    /**
+     * Registers a renderer for the type and its subtypes, replacing any earlier one for the same type.
+     */
+    public static synchronized <T> void register(Class<T> type, ArgRenderer<? super T> renderer) {
+        registered.put(type, renderer);
+        resolved = newResolvedCache();
+    }
+
+    public static synchronized void unregister(Class<?> type) {
+        registered.remove(type);
+        resolved = newResolvedCache();
+    }
+
+    public static int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * @param maxLength max characters of a single rendered argument other than a {@link CharSequence}
+     */
+    public static void setMaxLength(int maxLength) {
+        if (maxLength < 1) {
+            throw new IllegalArgumentException("maxLength must be positive");
+        }
+        ArgRenderers.maxLength = maxLength;
+    }
+
+    public static int getMaxElements() {
+        return maxElements;
+    }
+
+    /**
+     * @param maxElements max elements rendered per collection, map or array
+     */
+    public static void setMaxElements(int maxElements) {
+        if (maxElements < 0) {
+            throw new IllegalArgumentException("maxElements must not be negative");
+        }
+        ArgRenderers.maxElements = maxElements;
+    }
+
+    /**
+     * @return bounded rendering of the value, or the string itself
+     */
+    public static String render(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof String string) {
+            return string;
+        }
+        String cached = cachedRendering(value);
+        if (cached != null) {
+            return cached;
+        }
+        StringBuilder sb = new StringBuilder(Math.min(maxLength, 64));
+        render(value, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Appends a bounded rendering of the value, or a {@link CharSequence} in full. If its {@code toString()} or renderer throws, appends
+     * {@code <toString threw ExceptionName>} instead, so one broken argument never loses the whole log.
+     */
+    public static void render(Object value, StringBuilder out) {
+        if (value instanceof CharSequence chars) {
+            out.append(chars);
+            return;
+        }
+        int start = out.length();
+        int limit = start + maxLength;
+        try {
+            renderTo(value, out, limit);
+        } catch (RuntimeException e) {
+            out.setLength(start);
+            out.append("<toString threw ").append(e.getClass().getSimpleName()).append('>');
+            return;
+        }
+        if (out.length() > limit) {
+            out.setLength(limit);
+            out.append(ELLIPSIS);
+        }
+    }
+
+    /**
+     * Appends the value's rendering without the final truncation, for renderers of containers.
+     */
+    public static void renderTo(Object value, StringBuilder out, int limit) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        String cached = cachedRendering(value);
+        if (cached != null) {
+            out.append(cached);
+            return;
+        }
+        if (value instanceof String string) {
+            appendBounded(string, out, limit);
+            return;
+        }
+        resolved.get(value.getClass()).render(value, out, limit);
+    }
+
+    private static String cachedRendering(Object value) {
+        if (value instanceof Integer integer && integer >= CACHED_INT_MIN && integer <= CACHED_INT_MAX) {
+            return CACHED_INTS[integer - CACHED_INT_MIN];
+        }
+        if (value instanceof Enum<?> constant) {
+            return enumNames.get(constant.getDeclaringClass())[constant.ordinal()];
+        }
+        if (value instanceof Boolean bool) {
+            return bool ? "true" : "false";
+        }
+        return null;
+    }
+
+    private static ClassValue<ArgRenderer<Object>> newResolvedCache() {
+        return new ClassValue<>() {
+            @Override
+            protected ArgRenderer<Object> computeValue(Class<?> type) {
+                return resolve(type);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgRenderer<Object> resolve(Class<?> type) {
+        // Closest registered superclass first, then interfaces breadth-first
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            ArgRenderer<?> renderer = registered.get(c);
+            if (renderer != null) {
+                return (ArgRenderer<Object>) renderer;
+            }
+        }
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            interfaces.addAll(List.of(c.getInterfaces()));
+        }
+        while (!interfaces.isEmpty()) {
+            Class<?> candidate = interfaces.poll();
+            ArgRenderer<?> renderer = registered.get(candidate);
+            if (renderer != null) {
+                return (ArgRenderer<Object>) renderer;
+            }
+            interfaces.addAll(List.of(candidate.getInterfaces()));
+        }
+        if (CharSequence.class.isAssignableFrom(type)) {
+            return (value, out, limit) -> appendBounded((CharSequence) value, out, limit);
+        }
+        if (type == byte[].class) {
+            return (value, out, limit) -> out.append("byte[").append(((byte[]) value).length).append(']');
+        }
+        if (type.isArray()) {
+            return ArgRenderers::renderArray;
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return (value, out, limit) -> renderElements(((Collection<?>) value).iterator(), ((Collection<?>) value).size(), out, limit);
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return ArgRenderers::renderMap;
+        }
+        if (type == Optional.class) {
+            return (value, out, limit) -> {
+                Optional<?> optional = (Optional<?>) value;
+                if (optional.isEmpty()) {
+                    out.append("Optional.empty");
+                } else {
+                    out.append("Optional[");
+                    renderTo(optional.get(), out, limit);
+                    out.append(']');
+                }
+            };
+        }
+        return (value, out, limit) -> out.append(value);
+    }
+
+    private static void renderArray(Object array, StringBuilder out, int limit) {
+        int length = Array.getLength(array);
+        out.append('[');
+        int shown = Math.min(length, maxElements);
+        for (int i = 0; i < shown; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            if (out.length() >= limit) {
+                break;
+            }
+            renderTo(Array.get(array, i), out, limit);
+        }
+        appendRemainder(out, shown, length);
+        out.append(']');
+    }
+
+    private static void renderElements(Iterator<?> iterator, int size, StringBuilder out, int limit) {
+        out.append('[');
+        int shown = 0;
+        while (iterator.hasNext() && shown < maxElements && out.length() < limit) {
+            if (shown > 0) {
+                out.append(", ");
+            }
+            renderTo(iterator.next(), out, limit);
+            shown++;
+        }
+        appendRemainder(out, shown, size);
+        out.append(']');
+    }
+
+    private static void renderMap(Object value, StringBuilder out, int limit) {
+        Map<?, ?> map = (Map<?, ?>) value;
+        out.append('{');
+        int shown = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (shown >= maxElements || out.length() >= limit) {
+                break;
+            }
+            if (shown > 0) {
+                out.append(", ");
+            }
+            renderTo(entry.getKey(), out, limit);
+            out.append('=');
+            renderTo(entry.getValue(), out, limit);
+            shown++;
+        }
+        appendRemainder(out, shown, map.size());
+        out.append('}');
+    }
+
+    private static void appendBounded(CharSequence chars, StringBuilder out, int limit) {
+        int room = Math.max(0, limit - out.length());
+        if (chars.length() <= room) {
+            out.append(chars);
+        } else {
+            out.append(chars, 0, room).append(ELLIPSIS);
+        }
+    }
+
+    private static void appendRemainder(StringBuilder out, int shown, int total) {
+        if (shown < total) {
+            out.append(shown > 0 ? ", " : "").append(ELLIPSIS).append(" (").append(total).append(" total)");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package dev.kuku.vfl.core.models;
+
+import dev.kuku.vfl.core.helpers.render.ArgRenderers;
+
+/**
+ * A single typed key/value pair attached to a log or block, see {@link Attributes}.
+ *
+ * <p>Pass attributes among the arguments of a log call; they are taken out of the arguments before
+ * the message is formatted:</p>
+ * <pre>{@code
+ * import static dev.kuku.vfl.core.models.Attribute.kv;
+ *
+ * Log.Info("Charged {}", customer, kv("amount", 12.5), kv("retries", 2));
+ * }</pre>
+ */
+public final class Attribute {
+
+    public enum Type {
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        STRING
+    }
+
+    private final String key;
+    private final Type type;
+    private final long bits;
+    private final String string;
+
+    private Attribute(String key, Type type, long bits, String string) {
+        this.key = key;
+        this.type = type;
+        this.bits = bits;
+        this.string = string;
+    }
+
+    public static Attribute kv(String key, long value) {
+        return new Attribute(key, Type.LONG, value, null);
+    }
+
+    public static Attribute kv(String key, double value) {
+        return new Attribute(key, Type.DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    public static Attribute kv(String key, boolean value) {
+        return new Attribute(key, Type.BOOLEAN, value ? 1 : 0, null);
+    }
+
+    /**
+     * Strings longer than {@link Attributes#MAX_STRING_LENGTH} are truncated.
+     */
+    public static Attribute kv(String key, String value) {
+        return new Attribute(key, Type.STRING, 0, Attributes.truncate(value));
+    }
+
+    /**
+     * Attribute with the type derived from the value: integral numbers become {@link Type#LONG},
+     * other numbers {@link Type#DOUBLE}, booleans {@link Type#BOOLEAN} and everything else its
+     * (truncated) string form.
+     */
+    public static Attribute of(String key, Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return kv(key, ((Number) value).longValue());
+        }
+        if (value instanceof Number number) {
+            return kv(key, number.doubleValue());
+        }
+        if (value instanceof Boolean bool) {
+            return kv(key, bool.booleanValue());
+        }
+        return kv(key, value == null ? null : ArgRenderers.render(value));
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    long getBits() {
+        return bits;
+    }
+
+    String getString() {
+        return string;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + switch (type) {
+            case LONG -> String.valueOf(bits);
+            case DOUBLE -> String.valueOf(Double.longBitsToDouble(bits));
+            case BOOLEAN -> String.valueOf(bits != 0);
+            case STRING -> string;
+        };
+    }
+}
@@ -0,0 +1,238 @@
+package dev.kuku.vfl.core.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Typed key/value attributes of a log or block.
+ *
+ * <p>Values are kept in primitive form (numbers and booleans in a {@code long[]}, strings in a separate
+ * array), so the Hub can aggregate and filter on them without parsing messages. Serialized as a JSON
+ * object with native JSON types, e.g. {@code {"amount":12.5,"retries":2,"cached":false}}.</p>
+ *
+ * <p>Not thread safe; attributes are filled before the owning log or block is pushed.</p>
+ */
+@JsonSerialize(using = Attributes.Serializer.class)
+public final class Attributes {
+
+    /**
+     * Longer string values are truncated to this many characters.
+     */
+    public static final int MAX_STRING_LENGTH = 256;
+
+    private String[] keys;
+    private Attribute.Type[] types;
+    private long[] values;
+    private String[] strings;
+    private int size;
+
+    public Attributes() {
+        this(4);
+    }
+
+    public Attributes(int capacity) {
+        int initial = Math.max(1, capacity);
+        this.keys = new String[initial];
+        this.types = new Attribute.Type[initial];
+        this.values = new long[initial];
+    }
+
+    /**
+     * Creates attributes from the {@link Attribute}s among log call arguments.
+     *
+     * @return null if the arguments contain no {@link Attribute}
+     */
+    public static Attributes from(Object[] args) {
+        if (args == null) {
+            return null;
+        }
+        Attributes attributes = null;
+        for (Object arg : args) {
+            if (arg instanceof Attribute attribute) {
+                if (attributes == null) {
+                    attributes = new Attributes();
+                }
+                attributes.put(attribute);
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * @return the arguments without the {@link Attribute}s, or the same array if there are none
+     */
+    public static Object[] withoutAttributes(Object[] args) {
+        if (args == null) {
+            return null;
+        }
+        int count = 0;
+        for (Object arg : args) {
+            if (!(arg instanceof Attribute)) {
+                count++;
+            }
+        }
+        if (count == args.length) {
+            return args;
+        }
+        Object[] remaining = new Object[count];
+        int i = 0;
+        for (Object arg : args) {
+            if (!(arg instanceof Attribute)) {
+                remaining[i++] = arg;
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Used by Jackson when reading attributes back.
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Attributes fromMap(Map<String, Object> map) {
+        Attributes attributes = new Attributes(map.size());
+        map.forEach((key, value) -> attributes.put(Attribute.of(key, value)));
+        return attributes;
+    }
+
+    static String truncate(String value) {
+        return value == null || value.length() <= MAX_STRING_LENGTH ? value : value.substring(0, MAX_STRING_LENGTH);
+    }
+
+    public Attributes put(Attribute attribute) {
+        add(attribute.getKey(), attribute.getType(), attribute.getBits(), attribute.getString());
+        return this;
+    }
+
+    public Attributes put(String key, long value) {
+        add(key, Attribute.Type.LONG, value, null);
+        return this;
+    }
+
+    public Attributes put(String key, double value) {
+        add(key, Attribute.Type.DOUBLE, Double.doubleToRawLongBits(value), null);
+        return this;
+    }
+
+    public Attributes put(String key, boolean value) {
+        add(key, Attribute.Type.BOOLEAN, value ? 1 : 0, null);
+        return this;
+    }
+
+    public Attributes put(String key, String value) {
+        add(key, Attribute.Type.STRING, 0, truncate(value));
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getKey(int index) {
+        return keys[checkIndex(index)];
+    }
+
+    public Attribute.Type getType(int index) {
+        return types[checkIndex(index)];
+    }
+
+    public long getLong(int index) {
+        return values[checkIndex(index)];
+    }
+
+    public double getDouble(int index) {
+        return Double.longBitsToDouble(values[checkIndex(index)]);
+    }
+
+    public boolean getBoolean(int index) {
+        return values[checkIndex(index)] != 0;
+    }
+
+    public String getString(int index) {
+        checkIndex(index);
+        return strings == null ? null : strings[index];
+    }
+
+    /**
+     * @return the value at the index boxed into its natural Java type
+     */
+    public Object getValue(int index) {
+        return switch (getType(index)) {
+            case LONG -> getLong(index);
+            case DOUBLE -> getDouble(index);
+            case BOOLEAN -> getBoolean(index);
+            case STRING -> getString(index);
+        };
+    }
+
+    private void add(String key, Attribute.Type type, long value, String string) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            types = Arrays.copyOf(types, capacity);
+            values = Arrays.copyOf(values, capacity);
+            if (strings != null) {
+                strings = Arrays.copyOf(strings, capacity);
+            }
+        }
+        if (string != null && strings == null) {
+            strings = new String[keys.length];
+        }
+        keys[size] = key;
+        types[size] = type;
+        values[size] = value;
+        if (strings != null) {
+            strings[size] = string;
+        }
+        size++;
+    }
+
+    private int checkIndex(int index) {
+        return Objects.checkIndex(index, size);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(keys[i]).append('=').append(getValue(i));
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Writes attributes as a JSON object with native number and boolean values.
+     */
+    static final class Serializer extends StdSerializer<Attributes> {
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(Attributes.class);
+        }
+
+        @Override
+        public void serialize(Attributes attributes, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            for (int i = 0; i < attributes.size; i++) {
+                gen.writeFieldName(attributes.keys[i]);
+                switch (attributes.types[i]) {
+                    case LONG -> gen.writeNumber(attributes.values[i]);
+                    case DOUBLE -> gen.writeNumber(Double.longBitsToDouble(attributes.values[i]));
+                    case BOOLEAN -> gen.writeBoolean(attributes.values[i] != 0);
+                    case STRING -> gen.writeString(attributes.getString(i));
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package dev.kuku.vfl.core.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.ToString;
@@ -8,7 +10,30 @@ import lombok.ToString;
 @AllArgsConstructor
 @ToString
 public class Block {
-    private String id;
-    private String parentBlockId;
+    private VFLId id;
+    private VFLId parentBlockId;
     private String blockName;
-}
\ No newline at end of file
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Attributes attributes;
+    /**
+     * ID of the root block of the trace this block was created in, within this process; null for a root,
+     * or for a block received from another service. Not sent to the destination.
+     */
+    @JsonIgnore
+    private VFLId traceId;
+
+    public Block(VFLId id, VFLId parentBlockId, String blockName, Attributes attributes) {
+        this(id, parentBlockId, blockName, attributes, null);
+    }
+
+    public Block(VFLId id, VFLId parentBlockId, String blockName) {
+        this(id, parentBlockId, blockName, null);
+    }
+
+    /**
+     * @return ID of the trace's root block, or this block's own ID if it is the root
+     */
+    public VFLId getTraceId() {
+        return traceId != null ? traceId : id;
+    }
+}
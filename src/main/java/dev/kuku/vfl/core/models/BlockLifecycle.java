@@ -0,0 +1,26 @@
+package dev.kuku.vfl.core.models;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import dev.kuku.vfl.core.dtos.BlockEndData;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A block together with its start and end events, sent as one item when all of them
+ * end up in the same flush batch.
+ *
+ * <p>{@code startTime} and {@code endData} are null when the corresponding event was not
+ * part of the batch (the block spans several flushes); such events are pushed separately.
+ * Serialized flat: {@code {id, parentBlockId, blockName, startTime, endTime, endMessage}}.</p>
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class BlockLifecycle {
+    @JsonUnwrapped
+    private Block block;
+    private Long startTime;
+    @JsonUnwrapped
+    private BlockEndData endData;
+}
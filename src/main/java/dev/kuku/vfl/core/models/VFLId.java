@@ -0,0 +1,92 @@
+package dev.kuku.vfl.core.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.UUID;
+
+/**
+ * 128-bit identifier of blocks and logs, held as two longs.
+ *
+ * <p>IDs are created for every log call and referenced from several places (block, parent log,
+ * referenced block), so they are kept in binary form and only rendered to their canonical
+ * UUID text ({@code xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx}) when serialized or printed.
+ * The text is not cached, so a rendered ID doesn't keep its string alive.</p>
+ *
+ * <p>Ordering compares the high bits first, unsigned, which keeps time-based IDs (e.g., UUIDv7)
+ * sorted by creation time.</p>
+ */
+public final class VFLId implements Comparable<VFLId> {
+
+    private final long mostSignificantBits;
+    private final long leastSignificantBits;
+
+    private VFLId(long mostSignificantBits, long leastSignificantBits) {
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+    }
+
+    public static VFLId of(long mostSignificantBits, long leastSignificantBits) {
+        return new VFLId(mostSignificantBits, leastSignificantBits);
+    }
+
+    public static VFLId of(UUID uuid) {
+        return new VFLId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Parses the canonical UUID text form, e.g. an ID received from another service.
+     * Also used by Jackson for values and map keys.
+     *
+     * @throws IllegalArgumentException if the text is not a valid UUID
+     */
+    @JsonCreator
+    public static VFLId fromString(String id) {
+        return of(UUID.fromString(id));
+    }
+
+    public long getMostSignificantBits() {
+        return mostSignificantBits;
+    }
+
+    public long getLeastSignificantBits() {
+        return leastSignificantBits;
+    }
+
+    public UUID toUuid() {
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    /**
+     * @return last 12 hex digits of the ID, for compact log output
+     */
+    public String toShortString() {
+        String hex = Long.toHexString(leastSignificantBits & 0xFFFF_FFFF_FFFFL);
+        return "0".repeat(12 - hex.length()) + hex;
+    }
+
+    @JsonValue
+    @Override
+    public String toString() {
+        return toUuid().toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof VFLId other)) return false;
+        return mostSignificantBits == other.mostSignificantBits && leastSignificantBits == other.leastSignificantBits;
+    }
+
+    @Override
+    public int hashCode() {
+        long hilo = mostSignificantBits ^ leastSignificantBits;
+        return ((int) (hilo >> 32)) ^ (int) hilo;
+    }
+
+    @Override
+    public int compareTo(VFLId other) {
+        int result = Long.compareUnsigned(mostSignificantBits, other.mostSignificantBits);
+        return result != 0 ? result : Long.compareUnsigned(leastSignificantBits, other.leastSignificantBits);
+    }
+}
@@ -1,29 +1,112 @@
 package dev.kuku.vfl.core.models.logs;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.kuku.vfl.core.helpers.VFLHelper;
+import dev.kuku.vfl.core.models.Attributes;
 import dev.kuku.vfl.core.models.logs.enums.LogTypeEnum;
+import dev.kuku.vfl.core.models.VFLId;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 /**
  * Primitive Log that is simple in nature.
+ *
+ * <p>Treat instances as immutable. Fields are only rewritten through the protected {@link #init} when
+ * {@link dev.kuku.vfl.core.helpers.pool.VFLEventPool} recycles one of its own instances after it was flushed.</p>
+ *
+ * <p>A log created with a message template and arguments (see
+ * {@link dev.kuku.vfl.core.helpers.MessageFormatting}) formats its message on the first
+ * {@link #getMessage()} call, normally on the flush thread.</p>
  */
 @Getter
-@RequiredArgsConstructor
 public class Log {
-    private final String id;
-    private final String blockId;
-    private final String parentLogId;
-    private final LogType logType;
-    private final String message;
-    private final long timestamp;
+    private VFLId id;
+    private VFLId blockId;
+    private VFLId parentLogId;
+    private LogType logType;
+    private String message;
+    /** Template of a deferred message, null once formatted eagerly */
+    @JsonIgnore
+    private String messageTemplate;
+    /** Arguments of a deferred message; not to be modified */
+    @JsonIgnore
+    private Object[] messageArgs;
+    private long timestamp;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Attributes attributes;
+    /** Trace of the block, see {@link dev.kuku.vfl.core.models.Block#getTraceId()}; not sent to the destination */
+    @JsonIgnore
+    private VFLId traceId;
 
-    public Log(String id, String blockId, String parentLogId, LogTypeEnum logType, String message, long timestamp) {
+    public Log(VFLId id, VFLId blockId, VFLId parentLogId, LogType logType, String message, long timestamp) {
+        init(id, blockId, parentLogId, logType, message, timestamp);
+    }
+
+    public Log(VFLId id, VFLId blockId, VFLId parentLogId, LogTypeEnum logType, String message, long timestamp) {
+        this(id, blockId, parentLogId, LogType.of(logType), message, timestamp);
+    }
+
+    /**
+     * Empty instance to be filled by {@link #init}, for the event pool's subclass.
+     */
+    protected Log() {
+    }
 
+    /**
+     * Overwrites every field. Only for event pools reusing a flushed instance.
+     */
+    protected final void init(VFLId id, VFLId blockId, VFLId parentLogId, LogType logType, String message, long timestamp) {
         this.id = id;
         this.blockId = blockId;
         this.parentLogId = parentLogId;
-        this.logType = new LogType(logType);
+        this.logType = logType;
         this.message = message;
+        this.messageTemplate = null;
+        this.messageArgs = null;
         this.timestamp = timestamp;
+        this.attributes = null;
+        this.traceId = null;
+    }
+
+    /**
+     * Attaches typed attributes. Must be called before the log is pushed to a buffer.
+     */
+    public void setAttributes(Attributes attributes) {
+        this.attributes = attributes;
+    }
+
+    /**
+     * Sets the trace the log's block belongs to. Must be called before the log is pushed to a buffer.
+     */
+    public void setTraceId(VFLId traceId) {
+        this.traceId = traceId;
+    }
+
+    /**
+     * @return ID of the trace's root block, or the log's block ID if the trace was not set
+     */
+    public VFLId getTraceId() {
+        return traceId != null ? traceId : blockId;
+    }
+
+    /**
+     * Same as {@link #init(VFLId, VFLId, VFLId, LogType, String, long)}, but the message is only
+     * formatted from the template and arguments when first read.
+     */
+    protected final void initDeferred(VFLId id, VFLId blockId, VFLId parentLogId, LogType logType,
+                                      String messageTemplate, Object[] messageArgs, long timestamp) {
+        init(id, blockId, parentLogId, logType, null, timestamp);
+        this.messageTemplate = messageTemplate;
+        this.messageArgs = messageArgs;
+    }
+
+    public String getMessage() {
+        String formatted = message;
+        if (formatted == null && messageTemplate != null) {
+            // Racing readers just format twice and store the same result
+            formatted = VFLHelper.FormatMessage(messageTemplate, messageArgs);
+            message = formatted;
+        }
+        return formatted;
     }
-}
\ No newline at end of file
+}
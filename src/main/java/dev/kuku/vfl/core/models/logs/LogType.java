@@ -5,20 +5,121 @@ import com.fasterxml.jackson.annotation.JsonValue;
 import dev.kuku.vfl.core.models.logs.enums.LogTypeBlockStartEnum;
 import dev.kuku.vfl.core.models.logs.enums.LogTypeEnum;
 
-public class LogType {
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kind of a log entry, covering both {@link LogTypeEnum} and {@link LogTypeBlockStartEnum}.
+ *
+ * <p>There is one shared instance per enum constant, obtained via {@link #of(LogTypeEnum)} or
+ * {@link #of(LogTypeBlockStartEnum)}, so logs share them instead of allocating their own. The deprecated
+ * public constructors still work for existing callers, but create equal copies instead of returning them.
+ * Each instance carries a compact {@link #getCode() code}: the {@link LogTypeEnum} ordinal, or
+ * {@link #BLOCK_START_CODE_OFFSET} plus the {@link LogTypeBlockStartEnum} ordinal. The offset keeps block
+ * start codes stable when message levels are added. Consumers can switch on the code or on the enum
+ * accessors instead of comparing strings.</p>
+ *
+ * <p>Serialized as its plain string value, e.g. {@code "MESSAGE"} or {@code "SUB_BLOCK_START_PRIMARY"}.</p>
+ */
+public final class LogType {
+    /** Code of types read from JSON that this version does not know about */
+    public static final int UNKNOWN_CODE = -1;
+    /** Code of the first {@link LogTypeBlockStartEnum}; codes below it are {@link LogTypeEnum} ordinals */
+    public static final int BLOCK_START_CODE_OFFSET = 64;
+
+    private static final LogType[] MESSAGE_TYPES = new LogType[LogTypeEnum.values().length];
+    private static final LogType[] BLOCK_START_TYPES = new LogType[LogTypeBlockStartEnum.values().length];
+    private static final LogType[] BY_CODE = new LogType[BLOCK_START_CODE_OFFSET + BLOCK_START_TYPES.length];
+    private static final Map<String, LogType> BY_VALUE = new HashMap<>();
+
+    static {
+        if (MESSAGE_TYPES.length > BLOCK_START_CODE_OFFSET) {
+            throw new ExceptionInInitializerError("Too many LogTypeEnum constants for BLOCK_START_CODE_OFFSET");
+        }
+        for (LogTypeEnum e : LogTypeEnum.values()) {
+            register(MESSAGE_TYPES[e.ordinal()] = new LogType(e.toString(), e.ordinal(), e, null));
+        }
+        for (LogTypeBlockStartEnum e : LogTypeBlockStartEnum.values()) {
+            int code = BLOCK_START_CODE_OFFSET + e.ordinal();
+            register(BLOCK_START_TYPES[e.ordinal()] = new LogType(e.toString(), code, null, e));
+        }
+    }
+
     public final String value;
+    private final int code;
+    private final LogTypeEnum logTypeEnum;
+    private final LogTypeBlockStartEnum blockStartEnum;
 
+    /**
+     * @deprecated allocates a copy of the shared instance; use {@link #of(LogTypeEnum)}
+     */
+    @Deprecated
     public LogType(LogTypeEnum logType) {
-        this.value = logType.toString();
+        this(logType.toString(), of(logType).code, logType, null);
     }
 
+    /**
+     * @deprecated allocates a copy of the shared instance; use {@link #of(LogTypeBlockStartEnum)}
+     */
+    @Deprecated
     public LogType(LogTypeBlockStartEnum logType) {
-        this.value = logType.toString();
+        this(logType.toString(), of(logType).code, null, logType);
     }
 
-    // Private constructor for Jackson deserialization
-    private LogType(String value) {
+    private LogType(String value, int code, LogTypeEnum logTypeEnum, LogTypeBlockStartEnum blockStartEnum) {
         this.value = value;
+        this.code = code;
+        this.logTypeEnum = logTypeEnum;
+        this.blockStartEnum = blockStartEnum;
+    }
+
+    private static void register(LogType type) {
+        BY_CODE[type.code] = type;
+        BY_VALUE.put(type.value, type);
+    }
+
+    public static LogType of(LogTypeEnum logType) {
+        return MESSAGE_TYPES[logType.ordinal()];
+    }
+
+    public static LogType of(LogTypeBlockStartEnum logType) {
+        return BLOCK_START_TYPES[logType.ordinal()];
+    }
+
+    /**
+     * @throws IllegalArgumentException if no type has the given code
+     */
+    public static LogType ofCode(int code) {
+        LogType type = code < 0 || code >= BY_CODE.length ? null : BY_CODE[code];
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown log type code " + code);
+        }
+        return type;
+    }
+
+    /**
+     * @return code of the kind, see the class documentation, or {@link #UNKNOWN_CODE} for unrecognised types
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @return the message kind, or null if this is a block start kind
+     */
+    public LogTypeEnum getLogTypeEnum() {
+        return logTypeEnum;
+    }
+
+    /**
+     * @return the block start kind, or null if this is a message kind
+     */
+    public LogTypeBlockStartEnum getBlockStartEnum() {
+        return blockStartEnum;
+    }
+
+    public boolean isBlockStart() {
+        return blockStartEnum != null;
     }
 
     @JsonValue  // This tells Jackson to serialize this object as just the string value
@@ -27,8 +128,24 @@ public class LogType {
         return this.value;
     }
 
+    /**
+     * Returns the canonical instance for known values. Values from newer versions are kept
+     * as-is with {@link #UNKNOWN_CODE}.
+     */
     @JsonCreator  // This tells Jackson how to create the object from a string
     public static LogType fromString(String value) {
-        return new LogType(value);
+        LogType known = BY_VALUE.get(value);
+        return known != null ? known : new LogType(value, UNKNOWN_CODE, null, null);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof LogType other && value.equals(other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
     }
-}
\ No newline at end of file
+}
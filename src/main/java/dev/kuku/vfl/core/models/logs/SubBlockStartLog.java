@@ -1,25 +1,39 @@
 package dev.kuku.vfl.core.models.logs;
 
+import dev.kuku.vfl.core.helpers.clock.VFLClocks;
 import dev.kuku.vfl.core.models.logs.enums.LogTypeBlockStartEnum;
+import dev.kuku.vfl.core.models.VFLId;
 import lombok.Getter;
 
-import java.time.Instant;
-
 /**
  * Sub block start log following block's flow chain.
  */
 @Getter
 public class SubBlockStartLog extends Log {
     //The block that is being started
-    private final String referencedBlockId;
+    private VFLId referencedBlockId;
+
+    public SubBlockStartLog(VFLId id, VFLId blockId, VFLId parentLogId, String startMessage, VFLId referencedBlockId, LogTypeBlockStartEnum logType) {
+        super(id, blockId, parentLogId, LogType.of(logType), startMessage, VFLClocks.current().currentTimeMillis());
+        this.referencedBlockId = referencedBlockId;
+    }
 
-    public SubBlockStartLog(String id, String blockId, String parentLogId, String startMessage, String referencedBlockId, LogTypeBlockStartEnum logType) {
-        super(id, blockId, parentLogId, new LogType(logType), startMessage, Instant.now().toEpochMilli());
+    public SubBlockStartLog(Log log, VFLId referencedBlockId, LogTypeBlockStartEnum logTypeBlockStartEnum) {
+        super(log.getId(), log.getBlockId(), log.getParentLogId(), LogType.of(logTypeBlockStartEnum), log.getMessage(), VFLClocks.current().currentTimeMillis());
         this.referencedBlockId = referencedBlockId;
     }
 
-    public SubBlockStartLog(Log log, String referencedBlockId, LogTypeBlockStartEnum logTypeBlockStartEnum) {
-        super(log.getId(), log.getBlockId(), log.getParentLogId(), new LogType(logTypeBlockStartEnum), log.getMessage(), Instant.now().toEpochMilli());
+    /**
+     * Empty instance to be filled by {@link #init}, for the event pool's subclass.
+     */
+    protected SubBlockStartLog() {
+    }
+
+    /**
+     * Overwrites every field. Only for event pools reusing a flushed instance.
+     */
+    protected final void init(VFLId id, VFLId blockId, VFLId parentLogId, LogType logType, String startMessage, long timestamp, VFLId referencedBlockId) {
+        init(id, blockId, parentLogId, logType, startMessage, timestamp);
         this.referencedBlockId = referencedBlockId;
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,34 @@
 package dev.kuku.vfl.core.models.logs.enums;
 
+/**
+ * Level of a message log. {@code MESSAGE} is the INFO level.
+ *
+ * <p>New constants are appended so existing {@link dev.kuku.vfl.core.models.logs.LogType} codes stay
+ * stable; use {@link #getSeverity()} to compare levels.</p>
+ */
 public enum LogTypeEnum {
-    MESSAGE("MESSAGE"),
-    WARN("WARN"),
-    ERROR("ERROR");
+    MESSAGE("MESSAGE", 20),
+    WARN("WARN", 30),
+    ERROR("ERROR", 40),
+    DEBUG("DEBUG", 10),
+    TRACE("TRACE", 0);
 
     private final String DisplayName;
+    private final int severity;
 
-    LogTypeEnum(String displayName) {
+    LogTypeEnum(String displayName, int severity) {
         DisplayName = displayName;
+        this.severity = severity;
+    }
+
+    /**
+     * @return rank of the level, higher is more severe (TRACE &lt; DEBUG &lt; MESSAGE &lt; WARN &lt; ERROR)
+     */
+    public int getSeverity() {
+        return severity;
+    }
+
+    public boolean isAtLeast(LogTypeEnum other) {
+        return severity >= other.severity;
     }
 }
@@ -0,0 +1,226 @@
+package dev.kuku.vfl.impl.annotation;
+
+import dev.kuku.vfl.core.buffer.VFLBuffer;
+import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.helpers.clock.VFLClock;
+import dev.kuku.vfl.core.helpers.clock.VFLClocks;
+import dev.kuku.vfl.core.helpers.pool.VFLEventPool;
+import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
+import dev.kuku.vfl.core.models.logs.Log;
+import dev.kuku.vfl.core.models.logs.enums.LogTypeEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds back the events of a {@link SubBlock} with a minimum duration, and of everything nested in it on
+ * the same thread, until the block ends.
+ *
+ * <p>On {@link #finish()} the events are replayed in their original order into the target buffer (the
+ * parent's buffer, possibly another {@code DeferredBuffer}) if the block took at least its minimum
+ * duration, recorded a WARN or ERROR log or contains a kept deferred block; otherwise they are dropped. {@link #keep()} replays them
+ * immediately and turns this buffer into a pass-through, for blocks that other threads or services
+ * are about to reference.</p>
+ *
+ * <p>A block is also kept as soon as it is known to be significant, so long-running or chatty blocks don't
+ * pile up events: when an event arrives after the minimum duration has elapsed, or when
+ * {@link #MAX_HELD_EVENTS} events are held.</p>
+ *
+ * <p>Only used by the thread that owns the block, so it is not thread-safe.</p>
+ */
+final class DeferredBuffer implements VFLBuffer {
+
+    /** Held events after which the block is kept instead of holding more */
+    static final int MAX_HELD_EVENTS = 1024;
+
+    private final VFLBuffer target;
+    private final long minDurationNanos;
+    private final long startNanos;
+    private final VFLId parentLogId;
+    private VFLId blockId;
+    // null once the events were replayed or dropped
+    private List<Object> events = new ArrayList<>();
+    private boolean significant;
+
+    /**
+     * @param startNanos  {@link VFLClock#nanoTime()} when the sub-block started
+     * @param parentLogId current log of the parent block before the sub-block started, restored if it is dropped
+     */
+    DeferredBuffer(VFLBuffer target, long minDurationNanos, long startNanos, VFLId parentLogId) {
+        this.target = target;
+        this.minDurationNanos = minDurationNanos;
+        this.startNanos = startNanos;
+        this.parentLogId = parentLogId;
+    }
+
+    VFLId getParentLogId() {
+        return parentLogId;
+    }
+
+    @Override
+    public void pushLogToBuffer(Log log) {
+        if (events == null) {
+            target.pushLogToBuffer(log);
+            return;
+        }
+        LogTypeEnum type = log.getLogType() == null ? null : log.getLogType().getLogTypeEnum();
+        significant |= type != null && type.isAtLeast(LogTypeEnum.WARN);
+        hold(log);
+    }
+
+    @Override
+    public void pushBlockToBuffer(Block block) {
+        if (events == null) {
+            target.pushBlockToBuffer(block);
+            return;
+        }
+        if (blockId == null) {
+            blockId = block.getId(); // the deferred sub-block itself is always pushed first
+        }
+        hold(block);
+    }
+
+    @Override
+    public void pushLogStartToBuffer(VFLId blockId, long timestamp) {
+        if (events == null) {
+            target.pushLogStartToBuffer(blockId, timestamp);
+            return;
+        }
+        hold(new BlockStart(null, blockId, timestamp));
+    }
+
+    @Override
+    public void pushLogStartToBuffer(Block block, long timestamp) {
+        if (events == null) {
+            target.pushLogStartToBuffer(block, timestamp);
+            return;
+        }
+        hold(new BlockStart(block, block.getId(), timestamp));
+    }
+
+    @Override
+    public void pushLogEndToBuffer(VFLId blockId, BlockEndData endData) {
+        if (events == null) {
+            target.pushLogEndToBuffer(blockId, endData);
+            return;
+        }
+        holdEnd(new BlockEnd(null, blockId, endData));
+    }
+
+    @Override
+    public void pushLogEndToBuffer(Block block, BlockEndData endData) {
+        if (events == null) {
+            target.pushLogEndToBuffer(block, endData);
+            return;
+        }
+        holdEnd(new BlockEnd(block, block.getId(), endData));
+    }
+
+    private void holdEnd(BlockEnd end) {
+        significant |= end.blockId().equals(this.blockId) && end.endData().getDurationNanos() >= minDurationNanos;
+        hold(end);
+    }
+
+    /**
+     * Holds the event, or keeps the block if it already ran for its minimum duration or holds too many events.
+     */
+    private void hold(Object event) {
+        events.add(event);
+        if (events.size() >= MAX_HELD_EVENTS || VFLClocks.current().nanoTime() - startNanos >= minDurationNanos) {
+            keep();
+        }
+    }
+
+    /**
+     * Replays the held events into the target now and passes all further events through,
+     * keeping deferred ancestors as well.
+     */
+    void keep() {
+        if (events == null) {
+            return;
+        }
+        if (target instanceof DeferredBuffer parent) {
+            parent.keep();
+        }
+        replay();
+    }
+
+    /**
+     * Called once the sub-block ended: replays its events if it was slow or logged a warning or error,
+     * otherwise drops them.
+     *
+     * @return true if the events were kept
+     */
+    boolean finish() {
+        if (events == null) {
+            return true;
+        }
+        if (significant) {
+            replay();
+            return true;
+        }
+        discard();
+        return false;
+    }
+
+    private void replay() {
+        List<Object> held = events;
+        events = null;
+        if (target instanceof DeferredBuffer parent) {
+            parent.significant = true; // a kept block needs its parent
+        }
+        for (Object event : held) {
+            if (event instanceof Log log) {
+                target.pushLogToBuffer(log);
+            } else if (event instanceof Block block) {
+                target.pushBlockToBuffer(block);
+            } else if (event instanceof BlockStart start) {
+                if (start.block() != null) {
+                    target.pushLogStartToBuffer(start.block(), start.timestamp());
+                } else {
+                    target.pushLogStartToBuffer(start.blockId(), start.timestamp());
+                }
+            } else if (event instanceof BlockEnd end) {
+                if (end.block() != null) {
+                    target.pushLogEndToBuffer(end.block(), end.endData());
+                } else {
+                    target.pushLogEndToBuffer(end.blockId(), end.endData());
+                }
+            }
+        }
+    }
+
+    private void discard() {
+        List<Log> logs = new ArrayList<>();
+        List<BlockEndData> ends = new ArrayList<>();
+        for (Object event : events) {
+            if (event instanceof Log log) {
+                logs.add(log);
+            } else if (event instanceof BlockEnd end) {
+                ends.add(end.endData());
+            }
+        }
+        events = null;
+        VFLEventPool.release(logs, ends);
+    }
+
+    /**
+     * Does nothing: held events belong to a running block, and flushing the target is up to its owner.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * @param block the started block when pushed with it, so its trace is forwarded too; otherwise null
+     */
+    private record BlockStart(Block block, VFLId blockId, long timestamp) {
+    }
+
+    /**
+     * @param block the ended block when pushed with it, so its trace is forwarded too; otherwise null
+     */
+    private record BlockEnd(Block block, VFLId blockId, BlockEndData endData) {
+    }
+}
@@ -4,11 +4,14 @@ import dev.kuku.vfl.core.VFL;
 import dev.kuku.vfl.core.buffer.VFLBuffer;
 import dev.kuku.vfl.core.dtos.BlockContext;
 import dev.kuku.vfl.core.dtos.EventPublisherBlock;
+import dev.kuku.vfl.core.helpers.MessageFormatting;
 import dev.kuku.vfl.core.helpers.VFLFlowHelper;
 import dev.kuku.vfl.core.helpers.VFLHelper;
+import dev.kuku.vfl.core.helpers.VFLLogLevels;
 import dev.kuku.vfl.core.models.Block;
-import dev.kuku.vfl.core.models.logs.SubBlockStartLog;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.models.logs.enums.LogTypeBlockStartEnum;
+import dev.kuku.vfl.core.models.logs.enums.LogTypeEnum;
 
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -17,7 +20,8 @@ import java.util.function.Supplier;
 /**
  * Main logging API for Visual Flow Logger (VFL) when using the annotation-based approach.
  *
- * <p>Provides static convenience methods for logging at different levels ({@code Info}, {@code Warn}, {@code Error}),
+ * <p>Provides static convenience methods for logging at different levels ({@code Trace}, {@code Debug}, {@code Info},
+ * {@code Warn}, {@code Error}; minimum levels are set via {@link VFLLogLevels}),
  * publishing events, and creating continuation blocks for distributed tracing.
  *
  * <p>All methods automatically link log entries to the current VFL block context
@@ -35,6 +39,8 @@ import java.util.function.Supplier;
  * <h2>Message formatting:</h2>
  * <p>Message templates support placeholders like {@code {0}}, {@code {1}}, etc. for method arguments,
  * and some methods also allow embedding the return value using {@code {r}} or {@code {return}}.
+ * {@code Info}, {@code Warn} and {@code Error} may defer formatting to the flush pipeline,
+ * see {@link VFLAnnotationConfig#messageFormatting}.
  */
 public class Log {
 
@@ -47,10 +53,92 @@ public class Log {
 
         @Override
         protected VFLBuffer getBuffer() {
-            return VFLInitializer.VFLAnnotationConfig.buffer;
+            return ThreadContextManager.CurrentBuffer();
+        }
+
+        @Override
+        protected MessageFormatting getMessageFormatting() {
+            return VFLInitializer.VFLAnnotationConfig.messageFormatting;
         }
     };
 
+    // -------------------- TRACE / DEBUG --------------------
+
+    /**
+     * Log a diagnostic message at TRACE level. Disabled unless enabled via {@link VFLLogLevels};
+     * a disabled call returns before formatting anything or starting the block.
+     */
+    public static void Trace(String message, Object... args) {
+        if (!VFLInitializer.initialized) return;
+        INSTANCE.trace(message, args);
+    }
+
+    /**
+     * Same as {@link #Trace(String, Object...)} for one argument, without allocating the argument array
+     * while TRACE is disabled.
+     */
+    public static void Trace(String message, Object arg) {
+        if (!VFLInitializer.initialized || !VFLLogLevels.isEnabled(LogTypeEnum.TRACE)) return;
+        INSTANCE.trace(message, new Object[]{arg});
+    }
+
+    public static void Trace(String message, Object arg1, Object arg2) {
+        if (!VFLInitializer.initialized || !VFLLogLevels.isEnabled(LogTypeEnum.TRACE)) return;
+        INSTANCE.trace(message, new Object[]{arg1, arg2});
+    }
+
+    public static void Trace(String message, Object arg1, Object arg2, Object arg3) {
+        if (!VFLInitializer.initialized || !VFLLogLevels.isEnabled(LogTypeEnum.TRACE)) return;
+        INSTANCE.trace(message, new Object[]{arg1, arg2, arg3});
+    }
+
+    public static <R> R TraceFn(Supplier<R> fn, Function<R, String> messageSerializer) {
+        if (!VFLInitializer.initialized) return fn.get();
+        return INSTANCE.traceFn(fn, messageSerializer);
+    }
+
+    public static <R> R TraceFn(Supplier<R> fn, String message, Object... args) {
+        if (!VFLInitializer.initialized) return fn.get();
+        return INSTANCE.logFn(LogTypeEnum.TRACE, fn, args, (a, r) -> VFLHelper.FormatMessage(message, VFLHelper.CombineArgsWithReturn(a, r)));
+    }
+
+    /**
+     * Same as {@link #Trace(String, Object...)} but logs at DEBUG level.
+     */
+    public static void Debug(String message, Object... args) {
+        if (!VFLInitializer.initialized) return;
+        INSTANCE.debug(message, args);
+    }
+
+    /**
+     * Same as {@link #Debug(String, Object...)} for one argument, without allocating the argument array
+     * while DEBUG is disabled.
+     */
+    public static void Debug(String message, Object arg) {
+        if (!VFLInitializer.initialized || !VFLLogLevels.isEnabled(LogTypeEnum.DEBUG)) return;
+        INSTANCE.debug(message, new Object[]{arg});
+    }
+
+    public static void Debug(String message, Object arg1, Object arg2) {
+        if (!VFLInitializer.initialized || !VFLLogLevels.isEnabled(LogTypeEnum.DEBUG)) return;
+        INSTANCE.debug(message, new Object[]{arg1, arg2});
+    }
+
+    public static void Debug(String message, Object arg1, Object arg2, Object arg3) {
+        if (!VFLInitializer.initialized || !VFLLogLevels.isEnabled(LogTypeEnum.DEBUG)) return;
+        INSTANCE.debug(message, new Object[]{arg1, arg2, arg3});
+    }
+
+    public static <R> R DebugFn(Supplier<R> fn, Function<R, String> messageSerializer) {
+        if (!VFLInitializer.initialized) return fn.get();
+        return INSTANCE.debugFn(fn, messageSerializer);
+    }
+
+    public static <R> R DebugFn(Supplier<R> fn, String message, Object... args) {
+        if (!VFLInitializer.initialized) return fn.get();
+        return INSTANCE.logFn(LogTypeEnum.DEBUG, fn, args, (a, r) -> VFLHelper.FormatMessage(message, VFLHelper.CombineArgsWithReturn(a, r)));
+    }
+
     // -------------------- INFO --------------------
 
     /**
@@ -61,7 +149,7 @@ public class Log {
      */
     public static void Info(String message, Object... args) {
         if (!VFLInitializer.initialized) return;
-        INSTANCE.info(VFLHelper.FormatMessage(message, args));
+        INSTANCE.info(message, args);
     }
 
     /**
@@ -85,8 +173,7 @@ public class Log {
      */
     public static <R> R InfoFn(Supplier<R> fn, String message, Object... args) {
         if (!VFLInitializer.initialized) return fn.get();
-        Function<R, String> s = (r) -> VFLHelper.FormatMessage(message, VFLHelper.CombineArgsWithReturn(args, r));
-        return INSTANCE.infoFn(fn, s);
+        return INSTANCE.logFn(LogTypeEnum.MESSAGE, fn, args, (a, r) -> VFLHelper.FormatMessage(message, VFLHelper.CombineArgsWithReturn(a, r)));
     }
 
     /**
@@ -101,8 +188,7 @@ public class Log {
             runnable.run();
             return null;
         };
-        Function<Void, String> s = (r) -> VFLHelper.FormatMessage(message, args);
-        INSTANCE.infoFn(supplier, s);
+        INSTANCE.logFn(LogTypeEnum.MESSAGE, supplier, args, (a, r) -> VFLHelper.FormatMessage(message, a));
     }
 
     // -------------------- WARN --------------------
@@ -112,7 +198,7 @@ public class Log {
      */
     public static void Warn(String message, Object... args) {
         if (!VFLInitializer.initialized) return;
-        INSTANCE.warn(VFLHelper.FormatMessage(message, args));
+        INSTANCE.warn(message, args);
     }
 
     public static <R> R WarnFn(Supplier<R> fn, Function<R, String> messageSerializer) {
@@ -122,8 +208,7 @@ public class Log {
 
     public static <R> R WarnFn(Supplier<R> fn, String message, Object... args) {
         if (!VFLInitializer.initialized) return fn.get();
-        Function<R, String> s = (r) -> VFLHelper.FormatMessage(message, VFLHelper.CombineArgsWithReturn(args, r));
-        return INSTANCE.warnFn(fn, s);
+        return INSTANCE.logFn(LogTypeEnum.WARN, fn, args, (a, r) -> VFLHelper.FormatMessage(message, VFLHelper.CombineArgsWithReturn(a, r)));
     }
 
     public static void WarnFn(Runnable runnable, String message, Object... args) {
@@ -135,8 +220,7 @@ public class Log {
             runnable.run();
             return null;
         };
-        Function<Void, String> s = (r) -> VFLHelper.FormatMessage(message, args);
-        INSTANCE.warnFn(supplier, s);
+        INSTANCE.logFn(LogTypeEnum.WARN, supplier, args, (a, r) -> VFLHelper.FormatMessage(message, a));
     }
 
     // -------------------- ERROR --------------------
@@ -146,7 +230,7 @@ public class Log {
      */
     public static void Error(String message, Object... args) {
         if (!VFLInitializer.initialized) return;
-        INSTANCE.error(VFLHelper.FormatMessage(message, args));
+        INSTANCE.error(message, args);
     }
 
     public static <R> R ErrorFn(Supplier<R> fn, Function<R, String> messageSerializer) {
@@ -156,8 +240,7 @@ public class Log {
 
     public static <R> R ErrorFn(Supplier<R> fn, String message, Object... args) {
         if (!VFLInitializer.initialized) return fn.get();
-        Function<R, String> s = (r) -> VFLHelper.FormatMessage(message, VFLHelper.CombineArgsWithReturn(args, r));
-        return INSTANCE.errorFn(fn, s);
+        return INSTANCE.logFn(LogTypeEnum.ERROR, fn, args, (a, r) -> VFLHelper.FormatMessage(message, VFLHelper.CombineArgsWithReturn(a, r)));
     }
 
     public static void ErrorFn(Runnable runnable, String message, Object... args) {
@@ -169,8 +252,7 @@ public class Log {
             runnable.run();
             return null;
         };
-        Function<Void, String> s = (r) -> VFLHelper.FormatMessage(message, args);
-        INSTANCE.errorFn(supplier, s);
+        INSTANCE.logFn(LogTypeEnum.ERROR, supplier, args, (a, r) -> VFLHelper.FormatMessage(message, a));
     }
 
     // -------------------- EVENT PUBLISHING --------------------
@@ -181,11 +263,13 @@ public class Log {
      */
     public static EventPublisherBlock Publish(String publisherName, String message) {
         if (!VFLInitializer.initialized) return null;
+        ThreadContextManager.KeepCurrentBlocks();
         return INSTANCE.publish(publisherName, message);
     }
 
     public static EventPublisherBlock Publish(String publisherName, String message, Object... args) {
         if (!VFLInitializer.initialized) return null;
+        ThreadContextManager.KeepCurrentBlocks();
         return INSTANCE.publish(publisherName, VFLHelper.FormatMessage(message, args));
     }
 
@@ -194,6 +278,7 @@ public class Log {
      */
     public static EventPublisherBlock Publish(String publisherName) {
         if (!VFLInitializer.initialized) return null;
+        ThreadContextManager.KeepCurrentBlocks();
         return INSTANCE.publish(publisherName, "");
     }
 
@@ -219,14 +304,16 @@ public class Log {
             );
         }
 
-        Block detachedBlock = VFLFlowHelper.CreateBlockAndPush2Buffer(
+        // The detached block is referenced from elsewhere, so its parent must not be dropped
+        ThreadContextManager.KeepCurrentBlocks();
+        Block detachedBlock = VFLFlowHelper.CreateChildBlockAndPush2Buffer(
                 blockName,
-                currentContext.blockInfo.getId(),
+                currentContext.blockInfo,
                 VFLInitializer.VFLAnnotationConfig.buffer
         );
 
-        SubBlockStartLog subBlockStartLog = VFLFlowHelper.CreateLogAndPush2Buffer(
-                currentContext.blockInfo.getId(),
+        VFLId subBlockStartLogId = VFLFlowHelper.CreateLogAndPush2Buffer(
+                currentContext.blockInfo,
                 currentContext.currentLogId,
                 startMessage,
                 detachedBlock.getId(),
@@ -234,7 +321,7 @@ public class Log {
                 VFLInitializer.VFLAnnotationConfig.buffer
         );
 
-        currentContext.currentLogId = subBlockStartLog.getId();
+        currentContext.currentLogId = subBlockStartLogId;
 
         try {
             return fn.apply(detachedBlock);
@@ -244,8 +331,8 @@ public class Log {
             throw e;
         } finally {
             VFLFlowHelper.CreateLogAndPush2Buffer(
-                    subBlockStartLog.getBlockId(),
-                    subBlockStartLog.getId(), null,
+                    currentContext.blockInfo,
+                    subBlockStartLogId, null,
                     null, LogTypeBlockStartEnum.SUB_BLOCK_CONTINUE_COMPLETE, VFLInitializer.VFLAnnotationConfig.buffer
             );
         }
@@ -20,7 +20,8 @@ import java.lang.annotation.Target;
  * @SubBlock(
  *     blockName="Process {0}",
  *     startMessage="Start {0}",
- *     endMessage="Done {0} -> {r}"
+ *     endMessage="Done {0} -> {r}",
+ *     attributes={"order={0}", "amount={1}"}
  * )
  * }
  * </pre>
@@ -37,4 +38,30 @@ public @interface SubBlock {
 
     /** Message logged on exit. Blank = no end message. */
     String endMessage() default "";
+
+    /**
+     * Typed attributes of the block as {@code "key=value"} entries, e.g. {@code {"orderId={0}", "amount={1}"}}.
+     * A value that is exactly one {@code {N}} placeholder keeps the argument's number or boolean type.
+     */
+    String[] attributes() default {};
+
+    /**
+     * Minimum duration in microseconds for the block to be recorded. The block, its start log and
+     * everything logged inside it are held back until the method returns and dropped if it was faster,
+     * unless a WARN or ERROR was logged inside. Held events are emitted early once the minimum duration
+     * has elapsed or too many are held. {@code 0} records every call; negative (the default)
+     * uses {@link VFLAnnotationConfig#defaultMinDurationMicros}.
+     */
+    long minDurationMicros() default -1;
+
+    /**
+     * Max expected duration in milliseconds. A call taking longer gets a WARN log with its duration and
+     * slowest child and is counted in {@link dev.kuku.vfl.core.helpers.VFLSlaBreaches}. Zero or negative
+     * (the default) for none.
+     *
+     * <p>The slowest child is the slowest recorded sub-block that ran on the calling thread. Children started
+     * with {@link VFLFutures} run on other threads and are not considered, and neither are children dropped
+     * for being faster than their {@link #minDurationMicros()}.</p>
+     */
+    long slaMillis() default -1;
 }
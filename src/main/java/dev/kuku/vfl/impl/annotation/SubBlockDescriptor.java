@@ -0,0 +1,275 @@
+package dev.kuku.vfl.impl.annotation;
+
+import dev.kuku.vfl.core.helpers.MessageTemplate;
+import dev.kuku.vfl.core.helpers.VFLHelper;
+import dev.kuku.vfl.core.models.Attribute;
+import dev.kuku.vfl.core.models.Attributes;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable, precomputed view of a method's {@link SubBlock} annotation.
+ *
+ * <p>Built once per method on first use and cached per declaring class via {@link ClassValue}, so the
+ * advice doesn't look up the annotation, trim or parse templates on every invocation. Templates are
+ * compiled {@link MessageTemplate}s; only what a template actually needs is evaluated (e.g. the return
+ * value is never rendered for an end message without {@code {r}}).</p>
+ *
+ * <p>Descriptors are keyed by the method's name and JVM descriptor, e.g. {@code "process(Ljava/lang/String;)V"},
+ * which the advice gets as a class file constant. {@link #usesArguments(SubBlock)} and friends tell the
+ * weaver which values a method's advice has to bind at all.</p>
+ */
+public final class SubBlockDescriptor {
+
+    private static final ClassValue<Map<String, SubBlockDescriptor>> DESCRIPTORS = new ClassValue<>() {
+        @Override
+        protected Map<String, SubBlockDescriptor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final Method method;
+    // null when the name is derived from the method signature
+    private final MessageTemplate blockName;
+    private final MessageTemplate startMessage;
+    private final MessageTemplate endMessage;
+    private final String[] attributeKeys;
+    // argument index when the value is exactly one {N} placeholder, otherwise -1
+    private final int[] attributeArgIndexes;
+    private final MessageTemplate[] attributeValues;
+    // negative for the configured default
+    private final long minDurationMicros;
+    // 0 for none
+    private final long slaNanos;
+
+    private SubBlockDescriptor(Method method) {
+        this.method = method;
+        SubBlock annotation = method.getAnnotation(SubBlock.class);
+        this.blockName = annotation == null ? null : compile(annotation.blockName());
+        this.startMessage = annotation == null ? null : compile(annotation.startMessage());
+        this.endMessage = annotation == null ? null : compile(annotation.endMessage());
+        this.minDurationMicros = annotation == null ? -1 : annotation.minDurationMicros();
+        this.slaNanos = annotation == null || annotation.slaMillis() <= 0 ? 0 : TimeUnit.MILLISECONDS.toNanos(annotation.slaMillis());
+
+        String[] entries = annotation == null ? new String[0] : annotation.attributes();
+        int count = 0;
+        for (String entry : entries) {
+            if (entry.indexOf('=') > 0) {
+                count++;
+            }
+        }
+        this.attributeKeys = new String[count];
+        this.attributeArgIndexes = new int[count];
+        this.attributeValues = new MessageTemplate[count];
+        int i = 0;
+        for (String entry : entries) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            String value = entry.substring(separator + 1).trim();
+            attributeKeys[i] = entry.substring(0, separator).trim();
+            attributeArgIndexes[i] = singleArgPlaceholderIndex(value);
+            attributeValues[i] = MessageTemplate.compile(value, MessageTemplate.Syntax.INDEXED);
+            i++;
+        }
+    }
+
+    /**
+     * @return the cached descriptor of the method, created on first call
+     */
+    public static SubBlockDescriptor of(Method method) {
+        Map<String, SubBlockDescriptor> descriptors = DESCRIPTORS.get(method.getDeclaringClass());
+        String signature = signatureOf(method);
+        SubBlockDescriptor descriptor = descriptors.get(signature);
+        if (descriptor == null) {
+            descriptor = descriptors.computeIfAbsent(signature, ignored -> new SubBlockDescriptor(method));
+        }
+        return descriptor;
+    }
+
+    /**
+     * Allocation-free lookup used by the advice once the descriptor exists.
+     *
+     * @param signature method name followed by its JVM descriptor, see {@link #signatureOf(Method)}
+     * @return the cached descriptor of the method, created on first call
+     * @throws IllegalArgumentException if the type declares no such method
+     */
+    public static SubBlockDescriptor of(Class<?> type, String signature) {
+        Map<String, SubBlockDescriptor> descriptors = DESCRIPTORS.get(type);
+        SubBlockDescriptor descriptor = descriptors.get(signature);
+        if (descriptor == null) {
+            descriptor = descriptors.computeIfAbsent(signature, ignored -> new SubBlockDescriptor(findMethod(type, signature)));
+        }
+        return descriptor;
+    }
+
+    /**
+     * @return method name followed by its JVM descriptor, e.g. {@code "process(Ljava/lang/String;)V"}
+     */
+    public static String signatureOf(Method method) {
+        return method.getName() + MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    private static Method findMethod(Class<?> type, String signature) {
+        for (Method method : type.getDeclaredMethods()) {
+            if (signature.startsWith(method.getName()) && signature.equals(signatureOf(method))) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("No method " + signature + " in " + type.getName());
+    }
+
+    /**
+     * @return true if the block name, start message or attributes of the annotation need the method arguments
+     */
+    public static boolean startUsesArguments(SubBlock annotation) {
+        if (annotation.blockName().isBlank() || annotation.attributes().length > 0) {
+            return true; // the default name lists the arguments
+        }
+        return usesArguments(annotation.blockName()) || usesArguments(annotation.startMessage());
+    }
+
+    /**
+     * @return true if the end message of the annotation needs the method arguments
+     */
+    public static boolean endUsesArguments(SubBlock annotation) {
+        return usesArguments(annotation.endMessage());
+    }
+
+    /**
+     * @return true if the end message of the annotation needs the return value
+     */
+    public static boolean endUsesReturnValue(SubBlock annotation) {
+        MessageTemplate endMessage = compile(annotation.endMessage());
+        return endMessage != null && endMessage.hasReturnPlaceholder();
+    }
+
+    private static boolean usesArguments(String value) {
+        MessageTemplate template = compile(value);
+        return template != null && template.hasArgumentPlaceholder();
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public boolean hasStartMessage() {
+        return startMessage != null;
+    }
+
+    public boolean hasEndMessage() {
+        return endMessage != null;
+    }
+
+    /**
+     * @return true if the end message uses the return value
+     */
+    public boolean endMessageUsesReturnValue() {
+        return endMessage != null && endMessage.hasReturnPlaceholder();
+    }
+
+    public boolean hasAttributes() {
+        return attributeKeys.length > 0;
+    }
+
+    /**
+     * @return {@link SubBlock#minDurationMicros()}, or the given default if it is negative
+     */
+    public long getMinDurationMicros(long defaultMinDurationMicros) {
+        return minDurationMicros < 0 ? defaultMinDurationMicros : minDurationMicros;
+    }
+
+    /**
+     * @return {@link SubBlock#slaMillis()} in nanoseconds, 0 for none
+     */
+    public long getSlaNanos() {
+        return slaNanos;
+    }
+
+    /**
+     * @return {@link SubBlock#blockName()} with argument placeholders replaced, or the method signature
+     * with its arguments if no name is set
+     */
+    public String resolveBlockName(Object[] args) {
+        return blockName == null ? VFLHelper.GetMethodName(method, args) : blockName.render(args);
+    }
+
+    /**
+     * @return start message, or null if none is configured
+     */
+    public String resolveStartMessage(Object[] args) {
+        return startMessage == null ? null : startMessage.render(args);
+    }
+
+    /**
+     * @return end message, or null if none is configured
+     */
+    public String resolveEndMessage(Object[] args, Object returnedValue) {
+        return endMessage == null ? null : endMessage.render(args, returnedValue);
+    }
+
+    /**
+     * Resolves {@link SubBlock#attributes()}. A value that is exactly one {@code {N}} placeholder keeps
+     * the argument's type (number, boolean); any other value is stored as a string with its placeholders
+     * replaced.
+     *
+     * @return null if the annotation declares no attributes
+     */
+    public Attributes resolveAttributes(Object[] args) {
+        if (attributeKeys.length == 0) {
+            return null;
+        }
+        int argCount = args == null ? 0 : args.length;
+        Attributes attributes = new Attributes(attributeKeys.length);
+        for (int i = 0; i < attributeKeys.length; i++) {
+            int index = attributeArgIndexes[i];
+            if (index >= 0 && index < argCount) {
+                attributes.put(Attribute.of(attributeKeys[i], args[index]));
+            } else {
+                attributes.put(attributeKeys[i], attributeValues[i].render(args));
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * @return compiled template of a trimmed annotation value, or null if it is blank
+     */
+    private static MessageTemplate compile(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : MessageTemplate.compile(trimmed, MessageTemplate.Syntax.INDEXED);
+    }
+
+    /**
+     * @return N if the text is exactly one {@code {N}} placeholder, otherwise -1
+     */
+    private static int singleArgPlaceholderIndex(String text) {
+        if (text.length() < 3 || text.charAt(0) != '{' || text.charAt(text.length() - 1) != '}') {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 1; i < text.length() - 1; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9' || index > (Integer.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "SubBlockDescriptor{" +
+                "method=" + method.getDeclaringClass().getSimpleName() + "." + method.getName() +
+                ", blockName=" + blockName +
+                ", startMessage=" + startMessage +
+                ", endMessage=" + endMessage +
+                '}';
+    }
+}
@@ -0,0 +1,139 @@
+package dev.kuku.vfl.impl.annotation;
+
+import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of classes declaring {@link SubBlock} methods, written at compile time by
+ * {@link SubBlockIndexProcessor} to {@value #RESOURCE}.
+ *
+ * <p>Each line is {@code <binary class name>#<method name>}; blank lines and lines starting with
+ * {@code #} are ignored. Every index file belongs to the code source (jar or class directory) it was
+ * found in, and only decides about classes loaded from that code source: a jar compiled without the
+ * processor has no index of its own, so its classes are still inspected for {@link SubBlock} methods.</p>
+ */
+final class SubBlockIndex {
+
+    static final String RESOURCE = "META-INF/vfl/subblock.index";
+
+    private static final Logger log = LoggerFactory.getLogger(SubBlockIndex.class);
+
+    // code source location -> binary names of its indexed classes
+    private final Map<String, Set<String>> classNamesByCodeSource;
+
+    private SubBlockIndex(Map<String, Set<String>> classNamesByCodeSource) {
+        this.classNamesByCodeSource = classNamesByCodeSource;
+    }
+
+    /**
+     * Reads all index files visible to the given class loaders.
+     */
+    static SubBlockIndex load(ClassLoader... classLoaders) {
+        Set<URL> seen = new HashSet<>();
+        Map<String, Set<String>> classNamesByCodeSource = new HashMap<>();
+        for (ClassLoader classLoader : classLoaders) {
+            if (classLoader == null) {
+                continue;
+            }
+            try {
+                Enumeration<URL> resources = classLoader.getResources(RESOURCE);
+                while (resources.hasMoreElements()) {
+                    URL url = resources.nextElement();
+                    String codeSource = codeSourceOf(url);
+                    if (seen.add(url) && codeSource != null) {
+                        read(url, classNamesByCodeSource.computeIfAbsent(codeSource, ignored -> new HashSet<>()));
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("[VFL] Failed to read @SubBlock index from {}", classLoader, e);
+            }
+        }
+        return new SubBlockIndex(classNamesByCodeSource);
+    }
+
+    boolean isEmpty() {
+        return classNamesByCodeSource.isEmpty();
+    }
+
+    int classCount() {
+        return classNamesByCodeSource.values().stream().mapToInt(Set::size).sum();
+    }
+
+    int codeSourceCount() {
+        return classNamesByCodeSource.size();
+    }
+
+    /**
+     * @return the indexed classes of the code source the class was loaded from, or null if it has no index
+     */
+    private Set<String> classNamesFor(ProtectionDomain protectionDomain) {
+        CodeSource codeSource = protectionDomain == null ? null : protectionDomain.getCodeSource();
+        URL location = codeSource == null ? null : codeSource.getLocation();
+        return location == null ? null : classNamesByCodeSource.get(location.toExternalForm());
+    }
+
+    /**
+     * Matches classes from an indexed code source that its index doesn't list, by name and without
+     * parsing the class file.
+     */
+    AgentBuilder.RawMatcher unlisted() {
+        return (type, classLoader, module, classBeingRedefined, protectionDomain) -> {
+            Set<String> classNames = classNamesFor(protectionDomain);
+            return classNames != null && !classNames.contains(type.getName());
+        };
+    }
+
+    /**
+     * Matches classes listed in the index of their code source, and classes from other code sources
+     * that the fallback matches.
+     */
+    AgentBuilder.RawMatcher listedOr(ElementMatcher<? super TypeDescription> fallback) {
+        return (type, classLoader, module, classBeingRedefined, protectionDomain) -> {
+            Set<String> classNames = classNamesFor(protectionDomain);
+            return classNames != null ? classNames.contains(type.getName()) : fallback.matches(type);
+        };
+    }
+
+    /**
+     * @return location of the jar or directory containing the index file, in the form of
+     * {@link CodeSource#getLocation()}; null if it can't be derived
+     */
+    private static String codeSourceOf(URL indexUrl) {
+        String url = indexUrl.toExternalForm();
+        if (url.startsWith("jar:")) {
+            int separator = url.lastIndexOf("!/");
+            return separator < 0 ? null : url.substring("jar:".length(), separator);
+        }
+        return url.endsWith(RESOURCE) ? url.substring(0, url.length() - RESOURCE.length()) : null;
+    }
+
+    private static void read(URL url, Set<String> classNames) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int separator = line.indexOf('#');
+                classNames.add(separator < 0 ? line : line.substring(0, separator));
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dev.kuku.vfl.impl.annotation;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor writing the {@link SubBlockIndex} of the compiled module: one
+ * {@code <binary class name>#<method name>} line per non-abstract {@link SubBlock} method.
+ *
+ * <p>With an index on the classpath {@link VFLInitializer} matches classes by name instead of inspecting
+ * every loaded class. Entries of a previous index in the output directory are kept, so incremental
+ * builds don't lose classes that weren't recompiled. Methods of local and anonymous classes are not
+ * visible to annotation processors and therefore not indexed.</p>
+ *
+ * <p>Registered as a service, so it runs automatically when VFL is on the compile classpath. Builds that
+ * set an explicit processor path (e.g. {@code annotationProcessorPaths} for Lombok) must add VFL there.</p>
+ */
+@SupportedAnnotationTypes("dev.kuku.vfl.impl.annotation.SubBlock")
+public class SubBlockIndexProcessor extends AbstractProcessor {
+
+    private final Set<String> entries = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.METHOD || element.getModifiers().contains(Modifier.ABSTRACT)) {
+                    continue;
+                }
+                TypeElement type = (TypeElement) element.getEnclosingElement();
+                entries.add(processingEnv.getElementUtils().getBinaryName(type) + "#" + element.getSimpleName());
+            }
+        }
+        if (roundEnv.processingOver() && !entries.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void writeIndex() {
+        Set<String> merged = new TreeSet<>(entries);
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SubBlockIndex.RESOURCE);
+            try (BufferedReader reader = new BufferedReader(existing.openReader(true))) {
+                reader.lines().map(String::trim).filter(line -> !line.isEmpty() && !line.startsWith("#")).forEach(merged::add);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // No previous index
+        }
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SubBlockIndex.RESOURCE);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("# Classes with @SubBlock methods, generated by " + getClass().getSimpleName() + "\n");
+                for (String entry : merged) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Failed to write " + SubBlockIndex.RESOURCE + ": " + e.getMessage());
+        }
+    }
+}
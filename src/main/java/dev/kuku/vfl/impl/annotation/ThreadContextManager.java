@@ -1,5 +1,6 @@
 package dev.kuku.vfl.impl.annotation;
 
+import dev.kuku.vfl.core.buffer.VFLBuffer;
 import dev.kuku.vfl.core.dtos.BlockContext;
 import dev.kuku.vfl.core.helpers.VFLHelper;
 import dev.kuku.vfl.core.models.Block;
@@ -20,6 +21,8 @@ import java.util.Stack;
  *   <li>Pop and close contexts when leaving a traced block</li>
  *   <li>Clear the thread-local stack entirely when it becomes empty</li>
  *   <li>Provide quick access to the current (top) block context</li>
+ *   <li>Resolve the buffer of the current block, which is a {@link DeferredBuffer} inside
+ *       {@link SubBlock#minDurationMicros() deferred} sub-blocks</li>
  * </ul>
  *
  * <p><b>Lifecycle Notes:</b>
@@ -48,6 +51,25 @@ class ThreadContextManager {
         return loggerCtxStack.get().peek();
     }
 
+    /**
+     * @return buffer receiving the events of the current block; the configured buffer if there is no
+     * block or it isn't deferred
+     */
+    static VFLBuffer CurrentBuffer() {
+        BlockContext context = GetCurrentBlockContext();
+        return context == null || context.buffer == null ? VFLInitializer.VFLAnnotationConfig.buffer : context.buffer;
+    }
+
+    /**
+     * Emits the held events of the current block and its deferred ancestors immediately, because
+     * another thread or service is about to reference the block.
+     */
+    static void KeepCurrentBlocks() {
+        if (CurrentBuffer() instanceof DeferredBuffer deferred) {
+            deferred.keep();
+        }
+    }
+
     /**
      * Pop and close the current block context for this thread.
      *
@@ -56,6 +78,9 @@ class ThreadContextManager {
      *   <li>Checks if there is an active context; logs a warning if not found</li>
      *   <li>Closes the current block via {@link Log#close(String)}</li>
      *   <li>Pops the context from the stack</li>
+     *   <li>If the block was deferred, emits or drops its events; a dropped block's start log is
+     *       unlinked from the parent again</li>
+     *   <li>Records a kept block's duration as the parent's slowest child if it is</li>
      *   <li>If the stack becomes empty, removes the ThreadLocal entirely</li>
      * </ol>
      *
@@ -75,6 +100,20 @@ class ThreadContextManager {
                 VFLHelper.TrimId(popped.blockInfo.getId()),
                 VFLHelper.GetThreadInfo());
 
+        BlockContext parent = GetCurrentBlockContext();
+        boolean kept = true;
+        if (popped.buffer instanceof DeferredBuffer deferred && (parent == null || parent.buffer != deferred)) {
+            kept = deferred.finish();
+            if (!kept && parent != null) {
+                parent.currentLogId = deferred.getParentLogId();
+            }
+        }
+        // A dropped child can't be named in the parent's SLA warning, the Hub would never see it
+        if (kept && parent != null && popped.durationNanos > parent.slowestChildNanos) {
+            parent.slowestChildNanos = popped.durationNanos;
+            parent.slowestChildName = popped.blockInfo.getBlockName();
+        }
+
         if (loggerCtxStack.get().isEmpty()) {
             log.debug("LoggerCtxStack is empty for thread {}, Removing thread variable",
                     VFLHelper.GetThreadInfo());
@@ -87,13 +126,29 @@ class ThreadContextManager {
      *
      * <p>Wraps the block inside a new {@link BlockContext} before pushing.
      * If the stack is not yet created for this thread, it initializes it.
+     * The block's events go to the same buffer as its parent's.
      *
      * @param subBlock the new block to push as the current context
+     * @return the pushed context
+     */
+    static BlockContext PushBlockToThreadLogStack(Block subBlock) {
+        BlockContext parent = GetCurrentBlockContext();
+        return PushBlockToThreadLogStack(subBlock, parent == null ? null : parent.buffer);
+    }
+
+    /**
+     * Same as {@link #PushBlockToThreadLogStack(Block)}, with the buffer receiving the block's events.
+     *
+     * @param buffer null for the configured buffer
+     * @return the pushed context
      */
-    static void PushBlockToThreadLogStack(Block subBlock) {
+    static BlockContext PushBlockToThreadLogStack(Block subBlock, VFLBuffer buffer) {
         if (GetCurrentBlockContext() == null) {
             loggerCtxStack.set(new Stack<>());
         }
-        loggerCtxStack.get().push(new BlockContext(subBlock));
+        BlockContext context = new BlockContext(subBlock);
+        context.buffer = buffer;
+        loggerCtxStack.get().push(context);
+        return context;
     }
 }
@@ -1,20 +1,23 @@
 package dev.kuku.vfl.impl.annotation;
 
+import dev.kuku.vfl.core.buffer.VFLBuffer;
 import dev.kuku.vfl.core.dtos.BlockContext;
 import dev.kuku.vfl.core.helpers.VFLFlowHelper;
 import dev.kuku.vfl.core.helpers.VFLHelper;
+import dev.kuku.vfl.core.helpers.clock.VFLClocks;
 import dev.kuku.vfl.core.models.Block;
-import dev.kuku.vfl.core.models.logs.SubBlockStartLog;
+import dev.kuku.vfl.core.models.VFLId;
 import dev.kuku.vfl.core.models.logs.enums.LogTypeBlockStartEnum;
 import net.bytebuddy.asm.Advice;
 import net.bytebuddy.implementation.bytecode.assign.Assigner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Method;
-import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
 
 /**
  * ByteBuddy advice class injected into methods annotated with {@link SubBlock}.
@@ -43,6 +46,19 @@ import java.util.regex.Pattern;
  *       Case‑insensitive.</li>
  * </ul>
  *
+ * <p>Annotation values are read once per method into a {@link SubBlockDescriptor}.</p>
+ *
+ * <h3>Advice variants</h3>
+ * <p>The advice itself lives in the nested {@code Enter*}/{@code Exit*} classes. {@link VFLWeavingPlugin} picks
+ * one enter and one exit variant per method, binding the arguments and the return value only if the
+ * method's templates reference them, so methods without placeholders neither allocate an argument array
+ * nor box primitives. The method is identified by class and signature constants instead of a reflective
+ * {@link java.lang.reflect.Method}, and the {@link SubBlockDescriptor} resolved on entry is handed to the
+ * exit advice through {@link Advice.Enter}; {@code null} means the entry was skipped.</p>
+ *
+ * <p>Before anything else the entry advice reads the method's {@link TracingEnabled} switch, see
+ * {@link VFLTracingControl}. A switched-off method skips the advice after that one branch.</p>
+ *
  * <p><b>Note:</b> This advice assumes it is only executed for methods that were
  * matched in the ByteBuddy transformation phase via
  * {@code ElementMatchers.isAnnotatedWith(SubBlock.class)}.
@@ -50,80 +66,103 @@ import java.util.regex.Pattern;
 public class VFLAnnotationAdvice {
     public static final VFLAnnotationAdvice instance = new VFLAnnotationAdvice();
     private static final Logger log = LoggerFactory.getLogger(VFLAnnotationAdvice.class);
-    // Regex for {0}, {1}, etc.
-    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{(\\d+)}");
-    // Regex for {r} or {return} (case-insensitive)
-    private static final Pattern RETURN_PLACEHOLDER_PATTERN =
-            Pattern.compile("\\{r(?:eturn)?}", Pattern.CASE_INSENSITIVE);
 
     /**
-     * ByteBuddy entry point — delegates to {@link #on_enter(Method, Object[])}.
+     * Binds the {@link VFLTracingControl} switch of the instrumented method.
      */
-    @Advice.OnMethodEnter
-    public static void onEnter(@Advice.Origin Method method,
-                               @Advice.AllArguments Object[] args) {
-        VFLAnnotationAdvice.instance.on_enter(method, args);
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.PARAMETER)
+    public @interface TracingEnabled {
     }
 
+    /* -------------------- ByteBuddy entry points -------------------- */
+
     /**
-     * ByteBuddy exit point — delegates to {@link #on_exit(Method, Object[], Object, Throwable)}.
-     * Runs for both normal return and exceptional exit.
+     * Entry advice for methods whose block name, start message or attributes use the arguments.
      */
-    @Advice.OnMethodExit(onThrowable = Throwable.class)
-    public static void onExit(@Advice.Origin Method method,
-                              @Advice.AllArguments Object[] args,
-                              @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object returnedValue,
-                              @Advice.Thrown Throwable threw) {
-        VFLAnnotationAdvice.instance.on_exit(method, args, returnedValue, threw);
+    public static class Enter {
+        @Advice.OnMethodEnter
+        public static SubBlockDescriptor onEnter(@TracingEnabled boolean enabled,
+                                                 @Advice.Origin Class<?> type,
+                                                 @Advice.Origin("#m#d") String signature,
+                                                 @Advice.AllArguments Object[] args) {
+            if (!enabled) {
+                return null;
+            }
+            return VFLAnnotationAdvice.instance.on_enter(type, signature, args);
+        }
     }
 
-    /* -------------------- Runtime helper methods -------------------- */
-
-    private boolean isValid(String str) {
-        return str != null && !str.trim().isEmpty();
+    /**
+     * Entry advice for methods that don't need their arguments on entry.
+     */
+    public static class EnterWithoutArguments {
+        @Advice.OnMethodEnter
+        public static SubBlockDescriptor onEnter(@TracingEnabled boolean enabled,
+                                                 @Advice.Origin Class<?> type,
+                                                 @Advice.Origin("#m#d") String signature) {
+            if (!enabled) {
+                return null;
+            }
+            return VFLAnnotationAdvice.instance.on_enter(type, signature, null);
+        }
     }
 
     /**
-     * Replace {0}, {1}, ... argument placeholders with actual argument string values.
-     * Null arguments become "null". Invalid indexes are left unchanged.
+     * Exit advice for end messages using arguments and the return value.
+     * Like all exit variants it runs for both normal return and exceptional exit.
      */
-    private String replaceArgPlaceholders(String text, Object[] args) {
-        if (text == null || args == null || args.length == 0) {
-            return text;
+    public static class Exit {
+        @Advice.OnMethodExit(onThrowable = Throwable.class)
+        public static void onExit(@Advice.Enter SubBlockDescriptor descriptor,
+                                  @Advice.AllArguments Object[] args,
+                                  @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object returnedValue,
+                                  @Advice.Thrown Throwable threw) {
+            if (descriptor != null) {
+                VFLAnnotationAdvice.instance.on_exit(descriptor, args, returnedValue, threw);
+            }
         }
-        Matcher matcher = PLACEHOLDER_PATTERN.matcher(text);
-        StringBuilder sb = new StringBuilder();
-        while (matcher.find()) {
-            int index;
-            try {
-                index = Integer.parseInt(matcher.group(1));
-            } catch (NumberFormatException e) {
-                continue; // Should not happen for matched groups
+    }
+
+    /**
+     * Exit advice for end messages using arguments only.
+     */
+    public static class ExitWithArguments {
+        @Advice.OnMethodExit(onThrowable = Throwable.class)
+        public static void onExit(@Advice.Enter SubBlockDescriptor descriptor,
+                                  @Advice.AllArguments Object[] args,
+                                  @Advice.Thrown Throwable threw) {
+            if (descriptor != null) {
+                VFLAnnotationAdvice.instance.on_exit(descriptor, args, null, threw);
             }
-            String replacement;
-            if (index >= 0 && index < args.length) {
-                Object arg = args[index];
-                replacement = (arg == null) ? "null" : arg.toString();
-            } else {
-                replacement = matcher.group(0); // leave as-is
+        }
+    }
+
+    /**
+     * Exit advice for end messages using the return value only.
+     */
+    public static class ExitWithReturnValue {
+        @Advice.OnMethodExit(onThrowable = Throwable.class)
+        public static void onExit(@Advice.Enter SubBlockDescriptor descriptor,
+                                  @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object returnedValue,
+                                  @Advice.Thrown Throwable threw) {
+            if (descriptor != null) {
+                VFLAnnotationAdvice.instance.on_exit(descriptor, null, returnedValue, threw);
             }
-            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
         }
-        matcher.appendTail(sb);
-        return sb.toString();
     }
 
     /**
-     * Replace {r} / {return} placeholders with return value string.
-     * Only applied to endMessage. Null becomes "null".
+     * Exit advice for methods without an end message or with a constant one.
      */
-    private String replaceReturnPlaceholder(String text, Object returnedValue) {
-        if (text == null) {
-            return null;
+    public static class ExitWithoutArguments {
+        @Advice.OnMethodExit(onThrowable = Throwable.class)
+        public static void onExit(@Advice.Enter SubBlockDescriptor descriptor,
+                                  @Advice.Thrown Throwable threw) {
+            if (descriptor != null) {
+                VFLAnnotationAdvice.instance.on_exit(descriptor, null, null, threw);
+            }
         }
-        String replacement = (returnedValue == null) ? "null" : returnedValue.toString();
-        return RETURN_PLACEHOLDER_PATTERN.matcher(text)
-                .replaceAll(Matcher.quoteReplacement(replacement));
     }
 
     /* -------------------- Actual enter/exit logic -------------------- */
@@ -132,43 +171,58 @@ public class VFLAnnotationAdvice {
      * Called at the start of a {@code @SubBlock} method.
      * Resolves block name, start message (with placeholders replaced),
      * creates and pushes a sub‑block, and issues a start log.
-     * Skips if there is no active parent VFL block in context.
+     * Skips if there is no active parent VFL block in context, before resolving anything.
+     * With a {@link SubBlock#minDurationMicros() minimum duration} the block's events go to a
+     * {@link DeferredBuffer} until it ends.
+     *
+     * @param signature method name and JVM descriptor, see {@link SubBlockDescriptor#of(Class, String)}
+     * @param args      method arguments, or null if the method's templates don't use them
+     * @return the method's descriptor, or null if no block was created
      */
-    public void on_enter(Method method, Object[] args) {
-        String blockName = VFLHelper.ResolveBlockName(method, args);
-        String startMessage = VFLHelper.ResolveStartMessage(method, args);
-
-        log.debug("Entered SubBlock: {}", blockName);
-
+    public SubBlockDescriptor on_enter(Class<?> type, String signature, Object[] args) {
         BlockContext parentBlockContext = ThreadContextManager.GetCurrentBlockContext();
         if (parentBlockContext == null) {
-            log.warn("Could not create block for @SubBlock-{}: no parent block", blockName);
-            return;
+            log.warn("Could not create block for @SubBlock {}.{}: no parent block",
+                    type.getSimpleName(), signature.substring(0, signature.indexOf('(')));
+            return null;
         }
 
+        SubBlockDescriptor descriptor = SubBlockDescriptor.of(type, signature);
+        String blockName = descriptor.resolveBlockName(args);
+        String startMessage = descriptor.resolveStartMessage(args);
+
         log.debug("Creating sub-block '{}' from parent '{}-{}'.",
                 blockName,
                 parentBlockContext.blockInfo.getBlockName(),
                 VFLHelper.TrimId(parentBlockContext.blockInfo.getId()));
 
-        Block subBlock = VFLFlowHelper.CreateBlockAndPush2Buffer(
+        VFLBuffer buffer = ThreadContextManager.CurrentBuffer();
+        long minDurationMicros = descriptor.getMinDurationMicros(VFLInitializer.VFLAnnotationConfig.defaultMinDurationMicros);
+        if (minDurationMicros > 0) {
+            buffer = new DeferredBuffer(buffer, TimeUnit.MICROSECONDS.toNanos(minDurationMicros),
+                    VFLClocks.current().nanoTime(), parentBlockContext.currentLogId);
+        }
+
+        Block subBlock = VFLFlowHelper.CreateChildBlockAndPush2Buffer(
                 blockName,
-                parentBlockContext.blockInfo.getId(),
-                VFLInitializer.VFLAnnotationConfig.buffer
+                parentBlockContext.blockInfo,
+                descriptor.resolveAttributes(args),
+                buffer
         );
 
-        SubBlockStartLog subBlockStartLog = VFLFlowHelper.CreateLogAndPush2Buffer(
-                parentBlockContext.blockInfo.getId(),
+        VFLId subBlockStartLogId = VFLFlowHelper.CreateLogAndPush2Buffer(
+                parentBlockContext.blockInfo,
                 parentBlockContext.currentLogId,
                 startMessage,
                 subBlock.getId(),
                 LogTypeBlockStartEnum.SUB_BLOCK_START_PRIMARY,
-                VFLInitializer.VFLAnnotationConfig.buffer
+                buffer
         );
 
-        Objects.requireNonNull(ThreadContextManager.GetCurrentBlockContext()).currentLogId = subBlockStartLog.getId();
-        ThreadContextManager.PushBlockToThreadLogStack(subBlock);
+        parentBlockContext.currentLogId = subBlockStartLogId;
+        ThreadContextManager.PushBlockToThreadLogStack(subBlock, buffer).slaNanos = descriptor.getSlaNanos();
         Log.INSTANCE.ensureBlockStarted();
+        return descriptor;
     }
 
     /**
@@ -178,18 +232,28 @@ public class VFLAnnotationAdvice {
      *   <li>Resolves the end message (with arguments & return value placeholders)</li>
      *   <li>Pops the current block off the thread local stack</li>
      * </ul>
+     * Does nothing if {@link #on_enter} skipped the method, i.e. returned no descriptor.
+     *
+     * @param args          method arguments, or null if the end message doesn't use them
+     * @param returnedValue return value, or null if the end message doesn't use it
      */
-    public void on_exit(Method method, Object[] args, Object returnedValue, Throwable threw) {
-        String blockName = VFLHelper.ResolveBlockName(method, args);
+    public void on_exit(SubBlockDescriptor descriptor, Object[] args, Object returnedValue, Throwable threw) {
+        if (descriptor == null) {
+            return;
+        }
+        BlockContext currentBlockContext = ThreadContextManager.GetCurrentBlockContext();
+        if (currentBlockContext == null) {
+            return;
+        }
 
         if (threw != null) {
             Log.Error("Exception in SubBlock '{}': {} - {}",
-                    blockName,
+                    currentBlockContext.blockInfo.getBlockName(),
                     threw.getClass().getName(),
                     threw.getMessage());
         }
 
-        String endMsg = VFLHelper.ResolveEndMessage(method, args, returnedValue);
+        String endMsg = descriptor.resolveEndMessage(args, returnedValue);
         ThreadContextManager.PopCurrentStack(endMsg);
     }
 }
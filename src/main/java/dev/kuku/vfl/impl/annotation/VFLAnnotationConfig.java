@@ -1,7 +1,13 @@
 package dev.kuku.vfl.impl.annotation;
 
 import dev.kuku.vfl.core.buffer.VFLBuffer;
-import lombok.RequiredArgsConstructor;
+import dev.kuku.vfl.core.helpers.MessageFormatting;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.With;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Configuration object for initializing Visual Flow Logger (VFL) annotation-based tracing.
@@ -21,16 +27,30 @@ import lombok.RequiredArgsConstructor;
  *   <li>{@code buffer} – The {@link VFLBuffer} implementation used to store
  *       logs and block execution data before flushing.
  *       This can be an in-memory, async, or custom implementation depending on your needs.</li>
+ *   <li>{@code messageFormatting} – When {@link Log} messages with arguments are formatted,
+ *       see {@link MessageFormatting}. Defaults to {@link MessageFormatting#EAGER}.</li>
+ *   <li>{@code buildTimeWoven} – Set if classes were instrumented at build time by
+ *       {@link VFLWeavingPlugin}; skips the runtime agent. Defaults to {@code false}.</li>
+ *   <li>{@code subBlockIndex} – If {@code true}, classes from a jar or class directory containing a
+ *       {@code @SubBlock} index written by {@link SubBlockIndexProcessor} are instrumented only if listed in it;
+ *       classes from other code sources are inspected as usual. Disable it if a single jar or directory mixes
+ *       classes compiled with and without the processor. Defaults to {@code true}.</li>
+ *   <li>{@code defaultMinDurationMicros} – {@link SubBlock#minDurationMicros()} of sub-blocks that don't
+ *       set it; faster blocks without warnings or errors are dropped. Defaults to {@code 0} (record all).</li>
+ *   <li>{@code rootSlaMillis} – SLA in milliseconds per root block name passed to
+ *       {@link VFLStarter#StartRootBlock}; see {@link SubBlock#slaMillis()}. Defaults to none.</li>
  * </ul>
  *
  * <p><b>Example:</b>
  * <pre>{@code
  * VFLBuffer buffer = new MyCustomBuffer();
- * VFLAnnotationConfig config = new VFLAnnotationConfig(false, buffer);
+ * VFLAnnotationConfig config = new VFLAnnotationConfig(false, buffer)
+ *         .withMessageFormatting(MessageFormatting.DEFERRED_SNAPSHOT);
  * VFLInitializer.initialize(config);
  * }</pre>
  */
-@RequiredArgsConstructor
+@With
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class VFLAnnotationConfig {
 
     /**
@@ -44,4 +64,44 @@ public class VFLAnnotationConfig {
      * Must not be {@code null} when {@code disabled} is false.
      */
     public final VFLBuffer buffer;
+
+    /**
+     * When messages passed to {@link Log} with arguments are formatted.
+     */
+    public final MessageFormatting messageFormatting;
+
+    /**
+     * If {@code true}, {@link SubBlock} methods were instrumented at build time by {@link VFLWeavingPlugin}
+     * and {@link VFLInitializer} does not install the runtime agent.
+     */
+    public final boolean buildTimeWoven;
+
+    /**
+     * If {@code true}, the agent matches classes from code sources with a {@link SubBlockIndex} by name
+     * against it instead of inspecting them for {@link SubBlock} methods.
+     */
+    public final boolean subBlockIndex;
+
+    /**
+     * Minimum duration in microseconds of {@link SubBlock}s that don't set {@link SubBlock#minDurationMicros()};
+     * {@code 0} records every block.
+     */
+    public final long defaultMinDurationMicros;
+
+    /**
+     * SLA in milliseconds of root blocks by name. Must not be {@code null}.
+     */
+    public final Map<String, Long> rootSlaMillis;
+
+    public VFLAnnotationConfig(boolean disabled, VFLBuffer buffer) {
+        this(disabled, buffer, MessageFormatting.EAGER, false, true, 0, Map.of());
+    }
+
+    /**
+     * @return SLA of the root block with the given name in nanoseconds, 0 for none
+     */
+    long rootSlaNanos(String blockName) {
+        Long slaMillis = blockName == null ? null : rootSlaMillis.get(blockName);
+        return slaMillis == null || slaMillis <= 0 ? 0 : TimeUnit.MILLISECONDS.toNanos(slaMillis);
+    }
 }
@@ -55,18 +55,20 @@ public class VFLFutures {
                     VFLHelper.GetThreadInfo());
             return supplier;
         }
+        // The lambda's block on another thread references the parent, so it must not be dropped
+        ThreadContextManager.KeepCurrentBlocks();
 
         return () -> {
             try {
                 String blockName = "Lambda_JOIN block : " + VFLHelper.GetThreadInfo() + "-" +
                         VFLHelper.TrimId(UUID.randomUUID().toString());
-                var lambdaSubBlock = VFLFlowHelper.CreateBlockAndPush2Buffer(
+                var lambdaSubBlock = VFLFlowHelper.CreateChildBlockAndPush2Buffer(
                         blockName,
-                        parentContext.blockInfo.getId(),
+                        parentContext.blockInfo,
                         VFLInitializer.VFLAnnotationConfig.buffer
                 );
                 VFLFlowHelper.CreateLogAndPush2Buffer(
-                        parentContext.blockInfo.getId(),
+                        parentContext.blockInfo,
                         parentContext.currentLogId,
                         null,
                         lambdaSubBlock.getId(),
@@ -94,18 +96,19 @@ public class VFLFutures {
                     VFLHelper.GetThreadInfo());
             return runnable;
         }
+        ThreadContextManager.KeepCurrentBlocks();
 
         return () -> {
             try {
                 String blockName = "Lambda_NO_JOIN block : " + VFLHelper.GetThreadInfo() + "-" +
                         VFLHelper.TrimId(UUID.randomUUID().toString());
-                var lambdaSubBlock = VFLFlowHelper.CreateBlockAndPush2Buffer(
+                var lambdaSubBlock = VFLFlowHelper.CreateChildBlockAndPush2Buffer(
                         blockName,
-                        parentContext.blockInfo.getId(),
+                        parentContext.blockInfo,
                         VFLInitializer.VFLAnnotationConfig.buffer
                 );
                 VFLFlowHelper.CreateLogAndPush2Buffer(
-                        parentContext.blockInfo.getId(),
+                        parentContext.blockInfo,
                         parentContext.currentLogId,
                         null,
                         lambdaSubBlock.getId(),
@@ -1,10 +1,11 @@
 package dev.kuku.vfl.impl.annotation;
 
+import dev.kuku.vfl.core.buffer.VFLShutdownCoordinator;
 import net.bytebuddy.agent.ByteBuddyAgent;
 import net.bytebuddy.agent.builder.AgentBuilder;
-import net.bytebuddy.asm.Advice;
 import net.bytebuddy.description.type.TypeDescription;
 import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.matcher.ElementMatcher;
 import net.bytebuddy.matcher.ElementMatchers;
 import net.bytebuddy.utility.JavaModule;
 import org.slf4j.Logger;
@@ -26,6 +27,14 @@ import java.lang.instrument.Instrumentation;
  *   <li>Static methods in the same class that calls this initializer cannot be instrumented
  *       because their declaring class will already be loaded.</li>
  *   <li>If {@code disabled} is true, this initializer exits immediately without setting up anything.</li>
+ *   <li>The configured buffer is registered with {@link VFLShutdownCoordinator}, so it is drained
+ *       by a JVM shutdown hook.</li>
+ *   <li>Classes can instead be instrumented at build time with {@link VFLWeavingPlugin}; with
+ *       {@code buildTimeWoven} set in the config no agent is installed, so none of the above load-order
+ *       restrictions apply.</li>
+ *   <li>If a {@code @SubBlock} index generated by {@link SubBlockIndexProcessor} is on the classpath, classes
+ *       from the jar or directory it belongs to are matched against it by name, without parsing them.
+ *       Classes from code sources without an index are inspected for {@code @SubBlock} methods as usual.</li>
  * </ul>
  */
 public class VFLInitializer {
@@ -78,13 +87,34 @@ public class VFLInitializer {
         if (config == null || config.disabled) {
             return; // Do nothing if config is missing or disabled
         }
+        if (config.buildTimeWoven) {
+            // Classes were instrumented by VFLWeavingPlugin; no agent, no retransformation
+            VFLInitializer.VFLAnnotationConfig = config;
+            VFLShutdownCoordinator.register(config.buffer);
+            initialized = true;
+            log.info("[VFL] Initialised for build-time woven classes");
+            return;
+        }
         try {
             // Attach ByteBuddy agent to JVM
             Instrumentation inst = ByteBuddyAgent.install();
             VFLInitializer.VFLAnnotationConfig = config;
 
+            SubBlockIndex index = loadSubBlockIndex(config);
+            AgentBuilder agentBuilder = new AgentBuilder.Default();
+            ElementMatcher.Junction<TypeDescription> declaresSubBlock =
+                    ElementMatchers.declaresMethod(ElementMatchers.isAnnotatedWith(SubBlock.class));
+            AgentBuilder.RawMatcher candidates = new AgentBuilder.RawMatcher.ForElementMatchers(declaresSubBlock);
+            if (!index.isEmpty()) {
+                candidates = index.listedOr(declaresSubBlock);
+                // Skip classes of indexed code sources that aren't listed by name, before ByteBuddy parses them
+                agentBuilder = agentBuilder.ignore(index.unlisted());
+            }
+            AgentBuilder.RawMatcher subBlockCandidates = candidates;
+            ElementMatcher.Junction<TypeDescription> notWoven = ElementMatchers.not(ElementMatchers.isAnnotatedWith(VFLWoven.class));
+
             // Configure ByteBuddy to transform classes with @SubBlock annotated methods
-            new AgentBuilder.Default()
+            agentBuilder
                     .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION)
                     .with(new AgentBuilder.Listener() {
                         @Override
@@ -110,19 +140,20 @@ public class VFLInitializer {
                         public void onComplete(String typeName, ClassLoader classLoader,
                                                JavaModule module, boolean loaded) {}
                     })
-                    // Match classes that declare any method annotated with @SubBlock
-                    .type(ElementMatchers.declaresMethod(ElementMatchers.isAnnotatedWith(SubBlock.class)))
+                    // Match classes that declare any method annotated with @SubBlock and weren't woven at build time
+                    .type((type, classLoader, module, classBeingRedefined, protectionDomain) ->
+                            subBlockCandidates.matches(type, classLoader, module, classBeingRedefined, protectionDomain)
+                                    && notWoven.matches(type))
                     // Inject advice into those annotated methods, excluding abstract ones
                     .transform((builder, typeDescription, classLoader, javaModule, protectionDomain) -> {
                         log.debug("[VFL] Attempting to instrument: {}", typeDescription.getName());
-                        return builder.visit(
-                                Advice.to(VFLAnnotationAdvice.class)
-                                        .on(ElementMatchers.isAnnotatedWith(SubBlock.class)
-                                                .and(ElementMatchers.not(ElementMatchers.isAbstract())))
-                        );
+                        return builder.visit(VFLWeavingPlugin.subBlockAdvice());
                     })
                     .installOn(inst);
 
+            // Drain the buffer on JVM exit so data of in-progress requests survives a rolling deploy
+            VFLShutdownCoordinator.register(config.buffer);
+
             initialized = true;
             log.info("[VFL] Instrumentation initialised successfully");
         } catch (Exception e) {
@@ -130,4 +161,20 @@ public class VFLInitializer {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * @return the {@link SubBlockIndex} files on the classpath; empty if disabled or none was found
+     */
+    private static SubBlockIndex loadSubBlockIndex(VFLAnnotationConfig config) {
+        if (!config.subBlockIndex) {
+            return SubBlockIndex.load();
+        }
+        SubBlockIndex index = SubBlockIndex.load(Thread.currentThread().getContextClassLoader(),
+                VFLInitializer.class.getClassLoader());
+        if (!index.isEmpty()) {
+            log.info("[VFL] Using @SubBlock index with {} classes from {} code sources",
+                    index.classCount(), index.codeSourceCount());
+        }
+        return index;
+    }
 }
@@ -54,7 +54,8 @@ public class VFLStarter {
         Block rootBlock = VFLFlowHelper.CreateBlockAndPush2Buffer(
                 blockName, null, VFLInitializer.VFLAnnotationConfig.buffer);
 
-        ThreadContextManager.PushBlockToThreadLogStack(rootBlock);
+        ThreadContextManager.PushBlockToThreadLogStack(rootBlock).slaNanos =
+                VFLInitializer.VFLAnnotationConfig.rootSlaNanos(blockName);
         Log.INSTANCE.ensureBlockStarted();
 
         try {
@@ -135,13 +136,13 @@ public class VFLStarter {
             return supplier.get();
         }
 
-        Block eventListenerBlock = VFLFlowHelper.CreateBlockAndPush2Buffer(
+        Block eventListenerBlock = VFLFlowHelper.CreateChildBlockAndPush2Buffer(
                 eventListenerName,
-                publisherBlock.block().getId(),
+                publisherBlock.block(),
                 VFLInitializer.VFLAnnotationConfig.buffer);
 
         VFLFlowHelper.CreateLogAndPush2Buffer(
-                publisherBlock.block().getId(),
+                publisherBlock.block(),
                 null,
                 message,
                 eventListenerBlock.getId(),
@@ -0,0 +1,197 @@
+package dev.kuku.vfl.impl.annotation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns tracing of {@link SubBlock} methods on and off at runtime, per package, class or method.
+ *
+ * <p>Every instrumented method reads its switch through an {@code invokedynamic} call site linked to
+ * {@link #bootstrap}. The site is a {@link MutableCallSite} whose target is a constant, so the JIT
+ * folds it and a switched-off method pays a single branch: no context lookup, no descriptor lookup,
+ * no argument array. Changing a rule retargets the affected sites, which deoptimizes the methods
+ * that use them.</p>
+ *
+ * <h2>Rules</h2>
+ * A rule targets a package or class name ({@code "com.acme.payment"}, {@code "com.acme.payment.Checkout"})
+ * or one method ({@code "com.acme.payment.Checkout#charge"}, all overloads). A class rule also applies to
+ * its nested classes. For each method the most specific rule wins: method, then the longest matching
+ * package or class name, then the default (enabled unless changed with {@link #setDefaultEnabled(boolean)}).
+ *
+ * <p>This is independent of {@link VFLAnnotationConfig#disabled}, which switches VFL off as a whole.</p>
+ *
+ * <h2>Example:</h2>
+ * <pre>{@code
+ * // During an incident: trace only the checkout path
+ * VFLTracingControl.setDefaultEnabled(false);
+ * VFLTracingControl.enable("com.acme.payment.Checkout");
+ * ...
+ * VFLTracingControl.reset();
+ * }</pre>
+ */
+@Slf4j
+public final class VFLTracingControl {
+
+    private static final Map<String, Boolean> rules = new LinkedHashMap<>();
+    private static final List<WeakReference<GuardSite>> sites = new ArrayList<>();
+    private static boolean defaultEnabled = true;
+
+    private VFLTracingControl() {
+    }
+
+    /**
+     * Enables tracing for a package, class or method, see the class documentation for the syntax.
+     */
+    public static void enable(String target) {
+        setRule(target, true);
+    }
+
+    /**
+     * Disables tracing for a package, class or method, see the class documentation for the syntax.
+     */
+    public static void disable(String target) {
+        setRule(target, false);
+    }
+
+    /**
+     * Removes the rule for exactly this target, if any.
+     */
+    public static synchronized void clear(String target) {
+        if (rules.remove(target) != null) {
+            relink();
+        }
+    }
+
+    /**
+     * Sets whether methods without a matching rule are traced.
+     */
+    public static synchronized void setDefaultEnabled(boolean enabled) {
+        defaultEnabled = enabled;
+        relink();
+    }
+
+    /**
+     * Removes all rules and enables tracing everywhere.
+     */
+    public static synchronized void reset() {
+        rules.clear();
+        defaultEnabled = true;
+        relink();
+    }
+
+    /**
+     * @return the configured rules in insertion order, target to enabled
+     */
+    public static synchronized Map<String, Boolean> getRules() {
+        return new LinkedHashMap<>(rules);
+    }
+
+    /**
+     * @return true if {@link SubBlock} methods of the given name in the given class are traced
+     */
+    public static synchronized boolean isEnabled(String className, String methodName) {
+        Boolean methodRule = rules.get(className + "#" + methodName);
+        if (methodRule != null) {
+            return methodRule;
+        }
+        String bestMatch = null;
+        for (String target : rules.keySet()) {
+            if (target.indexOf('#') < 0 && covers(target, className)
+                    && (bestMatch == null || target.length() > bestMatch.length())) {
+                bestMatch = target;
+            }
+        }
+        return bestMatch == null ? defaultEnabled : rules.get(bestMatch);
+    }
+
+    /**
+     * Bootstrap of the tracing switch the advice reads in every instrumented method.
+     *
+     * @param signature method name and JVM descriptor of the instrumented method
+     */
+    public static CallSite bootstrap(MethodHandles.Lookup lookup, String name, MethodType type, String signature) {
+        GuardSite site = new GuardSite(lookup.lookupClass().getName(), signature.substring(0, signature.indexOf('(')));
+        synchronized (VFLTracingControl.class) {
+            site.link(isEnabled(site.className, site.methodName));
+            sites.add(new WeakReference<>(site));
+        }
+        return site;
+    }
+
+    private static synchronized void setRule(String target, boolean enabled) {
+        if (target == null || target.isBlank()) {
+            throw new IllegalArgumentException("Tracing rule target must not be blank");
+        }
+        rules.put(target.trim(), enabled);
+        relink();
+    }
+
+    /**
+     * Re-evaluates every linked call site; must hold the class lock.
+     */
+    private static void relink() {
+        List<MutableCallSite> changed = new ArrayList<>();
+        for (Iterator<WeakReference<GuardSite>> iterator = sites.iterator(); iterator.hasNext(); ) {
+            GuardSite site = iterator.next().get();
+            if (site == null) {
+                iterator.remove(); // class was unloaded
+                continue;
+            }
+            if (site.link(isEnabled(site.className, site.methodName))) {
+                changed.add(site);
+            }
+        }
+        if (!changed.isEmpty()) {
+            MutableCallSite.syncAll(changed.toArray(MutableCallSite[]::new));
+            log.info("[VFL] Tracing switched for {} @SubBlock methods", changed.size());
+        }
+    }
+
+    /**
+     * @return true if the rule target is the class name, a package or outer class of it
+     */
+    private static boolean covers(String target, String className) {
+        if (!className.startsWith(target)) {
+            return false;
+        }
+        if (className.length() == target.length()) {
+            return true;
+        }
+        char next = className.charAt(target.length());
+        return next == '.' || next == '$';
+    }
+
+    private static final class GuardSite extends MutableCallSite {
+        private final String className;
+        private final String methodName;
+        private Boolean linked;
+
+        GuardSite(String className, String methodName) {
+            super(MethodType.methodType(boolean.class));
+            this.className = className;
+            this.methodName = methodName;
+        }
+
+        /**
+         * @return true if the target changed
+         */
+        boolean link(boolean enabled) {
+            if (linked != null && linked == enabled) {
+                return false;
+            }
+            linked = enabled;
+            setTarget(MethodHandles.constant(boolean.class, enabled));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package dev.kuku.vfl.impl.annotation;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.asm.AsmVisitorWrapper;
+import net.bytebuddy.ClassFileVersion;
+import net.bytebuddy.build.Plugin;
+import net.bytebuddy.description.annotation.AnnotationDescription;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.implementation.bytecode.constant.IntegerConstant;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.utility.JavaConstant;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+import static net.bytebuddy.matcher.ElementMatchers.isAbstract;
+import static net.bytebuddy.matcher.ElementMatchers.isAnnotatedWith;
+import static net.bytebuddy.matcher.ElementMatchers.not;
+
+/**
+ * ByteBuddy build plugin applying the {@link VFLAnnotationAdvice} to {@link SubBlock} methods of compiled
+ * classes, i.e. the same instrumentation {@link VFLInitializer} otherwise installs at runtime through a
+ * self-attached agent.
+ *
+ * <p>Woven classes are marked with {@link VFLWoven}. Initialize with
+ * {@link VFLAnnotationConfig#withBuildTimeWoven(boolean) buildTimeWoven} set to skip the agent, its
+ * attach and the load-time class matching entirely.</p>
+ *
+ * <h2>Maven:</h2>
+ * <pre>{@code
+ * <plugin>
+ *     <groupId>net.bytebuddy</groupId>
+ *     <artifactId>byte-buddy-maven-plugin</artifactId>
+ *     <executions>
+ *         <execution>
+ *             <goals><goal>transform</goal></goals>
+ *         </execution>
+ *     </executions>
+ *     <configuration>
+ *         <transformations>
+ *             <transformation>
+ *                 <plugin>dev.kuku.vfl.impl.annotation.VFLWeavingPlugin</plugin>
+ *             </transformation>
+ *         </transformations>
+ *     </configuration>
+ * </plugin>
+ * }</pre>
+ */
+public class VFLWeavingPlugin implements Plugin {
+
+    private static final int START_ARGUMENTS = 1;
+    private static final int END_ARGUMENTS = 2;
+    private static final int END_RETURN_VALUE = 4;
+
+    private static final AsmVisitorWrapper SUB_BLOCK_ADVICE = createSubBlockAdvice();
+
+    /**
+     * The advice applied to {@link SubBlock} methods, shared with the runtime agent.
+     */
+    static AsmVisitorWrapper subBlockAdvice() {
+        return SUB_BLOCK_ADVICE;
+    }
+
+    /**
+     * One advice per combination of values the templates need, see {@link VFLAnnotationAdvice}.
+     */
+    private static AsmVisitorWrapper createSubBlockAdvice() {
+        AsmVisitorWrapper.ForDeclaredMethods wrapper = new AsmVisitorWrapper.ForDeclaredMethods();
+        for (int bindings = 0; bindings < 8; bindings++) {
+            Class<?> enter = (bindings & START_ARGUMENTS) != 0
+                    ? VFLAnnotationAdvice.Enter.class
+                    : VFLAnnotationAdvice.EnterWithoutArguments.class;
+            Class<?> exit = switch (bindings & (END_ARGUMENTS | END_RETURN_VALUE)) {
+                case END_ARGUMENTS | END_RETURN_VALUE -> VFLAnnotationAdvice.Exit.class;
+                case END_ARGUMENTS -> VFLAnnotationAdvice.ExitWithArguments.class;
+                case END_RETURN_VALUE -> VFLAnnotationAdvice.ExitWithReturnValue.class;
+                default -> VFLAnnotationAdvice.ExitWithoutArguments.class;
+            };
+            wrapper = wrapper.method(isAnnotatedWith(SubBlock.class).and(not(isAbstract())).and(needsBindings(bindings)),
+                    Advice.withCustomMapping()
+                            .bind(VFLAnnotationAdvice.TracingEnabled.class, new TracingSwitch())
+                            .to(enter, exit));
+        }
+        return wrapper;
+    }
+
+    /**
+     * Matches methods whose {@link SubBlock} templates need exactly the given values.
+     */
+    private static ElementMatcher.Junction<MethodDescription> needsBindings(int bindings) {
+        return new ElementMatcher.Junction.AbstractBase<>() {
+            @Override
+            public boolean matches(MethodDescription method) {
+                AnnotationDescription.Loadable<SubBlock> annotation = method.getDeclaredAnnotations().ofType(SubBlock.class);
+                return annotation != null && bindingsOf(method, annotation.load()) == bindings;
+            }
+        };
+    }
+
+    private static int bindingsOf(MethodDescription method, SubBlock annotation) {
+        boolean hasParameters = !method.getParameters().isEmpty();
+        int bindings = 0;
+        if (hasParameters && SubBlockDescriptor.startUsesArguments(annotation)) {
+            bindings |= START_ARGUMENTS;
+        }
+        if (hasParameters && SubBlockDescriptor.endUsesArguments(annotation)) {
+            bindings |= END_ARGUMENTS;
+        }
+        if (SubBlockDescriptor.endUsesReturnValue(annotation)) {
+            bindings |= END_RETURN_VALUE;
+        }
+        return bindings;
+    }
+
+    /**
+     * Reads the method's {@link VFLTracingControl} switch through an {@code invokedynamic} bootstrapped by
+     * {@link VFLTracingControl#bootstrap}. Class files too old for {@code invokedynamic} are always traced.
+     */
+    private static final class TracingSwitch implements Advice.OffsetMapping {
+        private static final MethodDescription.InDefinedShape BOOTSTRAP;
+
+        static {
+            try {
+                BOOTSTRAP = new MethodDescription.ForLoadedMethod(VFLTracingControl.class.getMethod("bootstrap",
+                        MethodHandles.Lookup.class, String.class, MethodType.class, String.class));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Target resolve(TypeDescription instrumentedType,
+                              MethodDescription instrumentedMethod,
+                              Assigner assigner,
+                              Advice.ArgumentHandler argumentHandler,
+                              Sort sort) {
+            ClassFileVersion version = instrumentedType.getClassFileVersion();
+            if (version != null && version.isLessThan(ClassFileVersion.JAVA_V7)) {
+                return new Target.ForStackManipulation(IntegerConstant.forValue(true));
+            }
+            return new Target.ForStackManipulation(MethodInvocation.invoke(BOOTSTRAP).dynamic(
+                    "tracingEnabled",
+                    TypeDescription.ForLoadedType.of(boolean.class),
+                    List.of(),
+                    List.of(JavaConstant.Simple.ofLoaded(instrumentedMethod.getInternalName() + instrumentedMethod.getDescriptor()))));
+        }
+    }
+
+    @Override
+    public boolean matches(TypeDescription target) {
+        return !target.getDeclaredAnnotations().isAnnotationPresent(VFLWoven.class)
+                && !target.getDeclaredMethods().filter(isAnnotatedWith(SubBlock.class).and(not(isAbstract()))).isEmpty();
+    }
+
+    @Override
+    public DynamicType.Builder<?> apply(DynamicType.Builder<?> builder,
+                                        TypeDescription typeDescription,
+                                        ClassFileLocator classFileLocator) {
+        return builder
+                .annotateType(AnnotationDescription.Builder.ofType(VFLWoven.class).build())
+                .visit(subBlockAdvice());
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,15 @@
+package dev.kuku.vfl.impl.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Added by {@link VFLWeavingPlugin} to classes whose {@link SubBlock} methods were instrumented at build
+ * time. The runtime agent skips such classes so their methods are never instrumented twice.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface VFLWoven {
+}
@@ -0,0 +1,113 @@
+package dev.kuku.vfl.core.buffer.flushHandler;
+
+import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.helpers.VFLHelper;
+import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
+import dev.kuku.vfl.core.models.logs.Log;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryingFlushHandlerTest {
+
+    /**
+     * Records every push it receives and fails the first {@code blockFailures} block pushes.
+     */
+    private static final class RecordingHandler implements VFLFlushHandler {
+        final List<String> received = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger blockFailures;
+
+        RecordingHandler(int blockFailures) {
+            this.blockFailures = new AtomicInteger(blockFailures);
+        }
+
+        @Override
+        public boolean pushLogsToServer(List<Log> logs) {
+            received.add("logs");
+            return true;
+        }
+
+        @Override
+        public boolean pushBlocksToServer(List<Block> blocks) {
+            boolean fail = blockFailures.getAndDecrement() > 0;
+            received.add(fail ? "blocks failed" : "blocks");
+            return !fail;
+        }
+
+        @Override
+        public boolean pushBlockStartsToServer(Map<VFLId, Long> blockStarts) {
+            received.add("starts");
+            return true;
+        }
+
+        @Override
+        public boolean pushBlockEndsToServer(Map<VFLId, BlockEndData> blockEnds) {
+            received.add("ends");
+            return true;
+        }
+
+        @Override
+        public void closeFlushHandler() {
+        }
+    }
+
+    private static List<Block> blocks() {
+        return List.of(new Block(VFLHelper.UID(), null, "block"));
+    }
+
+    @Test
+    void holdsDependentPushesBehindAFailedBatch() throws InterruptedException {
+        RecordingHandler delegate = new RecordingHandler(1);
+        RetryingFlushHandler handler = new RetryingFlushHandler(delegate, 5, 10, 50, 1 << 20);
+        try {
+            assertTrue(handler.pushBlocksToServer(blocks()));
+            assertTrue(handler.pushBlockStartsToServer(Map.of(VFLHelper.UID(), 1L)));
+            assertTrue(handler.pushLogsToServer(List.of()));
+            assertEquals(List.of("blocks failed"), delegate.received, "dependents must wait for the blocks");
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (handler.getStats().recovered() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(List.of("blocks failed", "blocks", "starts", "logs"), delegate.received);
+            assertEquals(0, handler.getStats().queuedBatches());
+        } finally {
+            handler.closeFlushHandler();
+        }
+    }
+
+    @Test
+    void dropsDependentsOfADroppedBatch() {
+        RecordingHandler delegate = new RecordingHandler(Integer.MAX_VALUE);
+        RetryingFlushHandler handler = new RetryingFlushHandler(delegate, 2, 10, 50, 1 << 20);
+        handler.pushBlocksToServer(blocks());
+        handler.pushLogsToServer(List.of());
+        handler.closeFlushHandler();
+
+        assertTrue(delegate.received.stream().allMatch("blocks failed"::equals), "logs sent without their blocks: " + delegate.received);
+        assertEquals(2, handler.getStats().droppedBatches());
+        assertEquals(0, handler.getStats().queuedBatches());
+    }
+
+    @Test
+    void sendsIndependentPushesStraightThrough() {
+        RecordingHandler delegate = new RecordingHandler(0);
+        RetryingFlushHandler handler = new RetryingFlushHandler(delegate, 2, 10, 50, 1 << 20);
+        try {
+            handler.pushBlocksToServer(blocks());
+            handler.pushLogsToServer(List.of());
+            assertEquals(List.of("blocks", "logs"), delegate.received);
+            assertEquals(0, handler.getStats().failedPushes());
+        } finally {
+            handler.closeFlushHandler();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dev.kuku.vfl.core.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageTemplateTest {
+
+    private static String sequential(String template, Object... args) {
+        return MessageTemplate.compile(template, MessageTemplate.Syntax.SEQUENTIAL).format(args);
+    }
+
+    private static MessageTemplate indexed(String template) {
+        return MessageTemplate.compile(template, MessageTemplate.Syntax.INDEXED);
+    }
+
+    @Test
+    void fillsSequentialPlaceholdersInOrder() {
+        assertEquals("a=1 b=two", sequential("a={} b={}", 1, "two"));
+    }
+
+    @Test
+    void keepsUnmatchedBracesAsWritten() {
+        assertEquals("open { only", sequential("open { only", 1));
+        assertEquals("close } then 1", sequential("close } then {}", 1));
+        assertEquals("{1}", sequential("{{}}", 1));
+        assertEquals("tail 1 {", sequential("tail {} {", 1));
+    }
+
+    @Test
+    void keepsPlaceholdersWithoutArguments() {
+        assertEquals("1 {}", sequential("{} {}", 1));
+        assertEquals("x {3}", indexed("x {3}").render(new Object[]{"a"}));
+    }
+
+    @Test
+    void doesNotExpandPlaceholdersInsideArguments() {
+        assertEquals("a {} b 2", sequential("a {} b {}", "{}", 2));
+        assertEquals("{1} {r}", indexed("{0} {1}").render(new Object[]{"{1}", "{r}"}, "ret"));
+    }
+
+    @Test
+    void keepsReturnPlaceholderWithoutReturnValue() {
+        MessageTemplate template = indexed("got {r} for {0}");
+        assertTrue(template.hasReturnPlaceholder());
+        assertEquals("got {r} for id", template.render(new Object[]{"id"}));
+        assertEquals("got 42 for id", template.render(new Object[]{"id"}, 42));
+        assertEquals("got null for id", template.render(new Object[]{"id"}, null));
+    }
+
+    @Test
+    void acceptsReturnPlaceholderInAnyCase() {
+        assertEquals("7 7", indexed("{R} {Return}").render(null, 7));
+    }
+
+    @Test
+    void treatsNonNumericIndexedContentAsLiteral() {
+        MessageTemplate template = indexed("{x} {} {0}");
+        assertEquals("{x} {} a", template.render(new Object[]{"a"}));
+        assertFalse(indexed("{x} {}").hasPlaceholders());
+    }
+}
@@ -0,0 +1,56 @@
+package dev.kuku.vfl.core.helpers.idGenerator;
+
+import dev.kuku.vfl.core.models.VFLId;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedIdGeneratorTest {
+
+    private static final long NODE_MASK = 0x003F_FFFF_FFFF_FFFFL;
+
+    @Test
+    void createsVersion7Uuids() {
+        UUID uuid = new StripedIdGenerator(4).next().toUuid();
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void startsWithEpochMillis() {
+        long before = System.currentTimeMillis();
+        VFLId id = new StripedIdGenerator(4).next();
+        long after = System.currentTimeMillis();
+        long millis = id.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= after, "millis " + millis + " outside [" + before + ", " + after + "]");
+    }
+
+    @Test
+    void endsWithNodeAndStripeIndex() {
+        StripedIdGenerator generator = new StripedIdGenerator(3); // rounded up to 4 stripes
+        long lsb = generator.next().getLeastSignificantBits();
+        assertEquals(Thread.currentThread().threadId() & 3, lsb & 0xFF);
+        long node = (lsb >>> 8) & NODE_MASK;
+        for (int i = 0; i < 100; i++) {
+            assertEquals(node, (generator.next().getLeastSignificantBits() >>> 8) & NODE_MASK);
+        }
+    }
+
+    @Test
+    void staysUniqueAndOrderedBeyondTheSequenceOfOneMillisecond() {
+        StripedIdGenerator generator = new StripedIdGenerator(1);
+        Set<VFLId> seen = new HashSet<>();
+        VFLId previous = generator.next();
+        for (int i = 0; i < 20_000; i++) {
+            VFLId id = generator.next();
+            assertTrue(id.compareTo(previous) > 0, id + " not after " + previous);
+            assertTrue(seen.add(id));
+            previous = id;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package dev.kuku.vfl.core.helpers.pool;
+
+import dev.kuku.vfl.core.buffer.SynchronousBuffer;
+import dev.kuku.vfl.core.buffer.VFLBuffer;
+import dev.kuku.vfl.core.buffer.flushHandler.NoOpsFlushHandler;
+import dev.kuku.vfl.core.helpers.VFLFlowHelper;
+import dev.kuku.vfl.core.helpers.VFLHelper;
+import dev.kuku.vfl.core.models.VFLId;
+import dev.kuku.vfl.core.models.logs.enums.LogTypeEnum;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the allocation of the logging path with and without {@link VFLEventPool}.
+ *
+ * <p>Pooling removes the log objects, not the whole allocation: each log still allocates its
+ * {@link VFLId} and its share of the flush snapshot. Absolute numbers depend on the JVM, so only the
+ * ratio is asserted.</p>
+ */
+class VFLEventPoolAllocationTest {
+
+    private static final int LOGS = 200_000;
+
+    @Test
+    void pooledLogsAllocateClearlyLess() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        long unpooled = bytesPerLog(threads);
+        VFLEventPool.enable(16_384);
+        long pooled;
+        try {
+            pooled = bytesPerLog(threads);
+        } finally {
+            VFLEventPool.disable();
+        }
+
+        assertTrue(pooled < unpooled * 3 / 4, "pooling should clearly reduce allocation, was " + pooled + " vs " + unpooled);
+    }
+
+    private static long bytesPerLog(com.sun.management.ThreadMXBean threads) {
+        VFLBuffer buffer = new SynchronousBuffer(1_000, new NoOpsFlushHandler());
+        VFLId blockId = VFLHelper.UID();
+        logMany(blockId, buffer); // warm-up, also fills the pool
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        logMany(blockId, buffer);
+        return (threads.getThreadAllocatedBytes(threadId) - before) / LOGS;
+    }
+
+    private static void logMany(VFLId blockId, VFLBuffer buffer) {
+        VFLId parentLogId = null;
+        for (int i = 0; i < LOGS; i++) {
+            parentLogId = VFLFlowHelper.CreateLogAndPush2Buffer(blockId, parentLogId, LogTypeEnum.MESSAGE, "message", buffer);
+        }
+    }
+}
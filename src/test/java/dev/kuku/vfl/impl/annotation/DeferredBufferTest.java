@@ -0,0 +1,194 @@
+package dev.kuku.vfl.impl.annotation;
+
+import dev.kuku.vfl.core.buffer.VFLBuffer;
+import dev.kuku.vfl.core.dtos.BlockContext;
+import dev.kuku.vfl.core.dtos.BlockEndData;
+import dev.kuku.vfl.core.helpers.VFLFlowHelper;
+import dev.kuku.vfl.core.helpers.VFLHelper;
+import dev.kuku.vfl.core.helpers.clock.VFLClocks;
+import dev.kuku.vfl.core.models.Block;
+import dev.kuku.vfl.core.models.VFLId;
+import dev.kuku.vfl.core.models.logs.Log;
+import dev.kuku.vfl.core.models.logs.enums.LogTypeEnum;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeferredBufferTest {
+
+    private static final long ONE_HOUR = TimeUnit.HOURS.toNanos(1);
+
+    /**
+     * Records the kind of every event pushed to it.
+     */
+    private static final class RecordingBuffer implements VFLBuffer {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void pushLogToBuffer(Log log) {
+            events.add("log " + log.getMessage());
+        }
+
+        @Override
+        public void pushBlockToBuffer(Block block) {
+            events.add("block " + block.getBlockName());
+        }
+
+        @Override
+        public void pushLogStartToBuffer(VFLId blockId, long timestamp) {
+            events.add("start");
+        }
+
+        @Override
+        public void pushLogEndToBuffer(VFLId blockId, BlockEndData endData) {
+            events.add("end");
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+
+    private final RecordingBuffer target = new RecordingBuffer();
+
+    private static long now() {
+        return VFLClocks.current().nanoTime();
+    }
+
+    @AfterEach
+    void clearThreadContext() {
+        ThreadContextManager.loggerCtxStack.remove();
+    }
+
+    /**
+     * Pushes a block with one log of the given level and its end after the given duration.
+     */
+    private static void runBlock(DeferredBuffer deferred, LogTypeEnum level, long durationNanos) {
+        Block block = new Block(VFLHelper.UID(), null, "child");
+        deferred.pushBlockToBuffer(block);
+        deferred.pushLogStartToBuffer(block.getId(), 1);
+        VFLFlowHelper.CreateLogAndPush2Buffer(block.getId(), null, level, "message", deferred);
+        deferred.pushLogEndToBuffer(block.getId(), new BlockEndData(2, null, durationNanos));
+    }
+
+    @Test
+    void dropsFastBlocks() {
+        DeferredBuffer deferred = new DeferredBuffer(target, ONE_HOUR, now(), null);
+        runBlock(deferred, LogTypeEnum.MESSAGE, 1_000);
+        assertFalse(deferred.finish());
+        assertTrue(target.events.isEmpty());
+    }
+
+    @Test
+    void keepsSlowBlocksInOrder() {
+        DeferredBuffer deferred = new DeferredBuffer(target, ONE_HOUR, now(), null);
+        runBlock(deferred, LogTypeEnum.MESSAGE, 2 * ONE_HOUR);
+        assertTrue(target.events.isEmpty(), "nothing is emitted before the block ends");
+        assertTrue(deferred.finish());
+        assertEquals(List.of("block child", "start", "log message", "end"), target.events);
+    }
+
+    @Test
+    void keepsFastBlocksWithWarnings() {
+        DeferredBuffer deferred = new DeferredBuffer(target, ONE_HOUR, now(), null);
+        runBlock(deferred, LogTypeEnum.WARN, 1_000);
+        assertTrue(deferred.finish());
+        assertEquals(4, target.events.size());
+    }
+
+    @Test
+    void keepPassesEventsThroughAndKeepsAncestors() {
+        DeferredBuffer parent = new DeferredBuffer(target, ONE_HOUR, now(), null);
+        DeferredBuffer child = new DeferredBuffer(parent, ONE_HOUR, now(), null);
+        runBlock(child, LogTypeEnum.MESSAGE, 1_000);
+        child.keep();
+        assertEquals(4, target.events.size());
+        VFLFlowHelper.CreateLogAndPush2Buffer(VFLHelper.UID(), null, LogTypeEnum.MESSAGE, "after keep", child);
+        assertEquals("log after keep", target.events.get(4));
+        assertTrue(child.finish());
+        assertTrue(parent.finish());
+    }
+
+    @Test
+    void keptChildKeepsItsParent() {
+        DeferredBuffer parent = new DeferredBuffer(target, ONE_HOUR, now(), null);
+        DeferredBuffer child = new DeferredBuffer(parent, ONE_HOUR, now(), null);
+        runBlock(child, LogTypeEnum.MESSAGE, 2 * ONE_HOUR);
+        assertTrue(child.finish());
+        assertTrue(target.events.isEmpty());
+        assertTrue(parent.finish());
+        assertEquals(4, target.events.size());
+    }
+
+    @Test
+    void droppedBlockRestoresTheParentsCurrentLog() {
+        BlockContext parent = ThreadContextManager.PushBlockToThreadLogStack(new Block(VFLHelper.UID(), null, "parent"), target);
+        VFLId logBeforeChild = VFLHelper.UID();
+        DeferredBuffer deferred = new DeferredBuffer(target, ONE_HOUR, now(), logBeforeChild);
+        parent.currentLogId = VFLHelper.UID(); // start log of the child
+        ThreadContextManager.PushBlockToThreadLogStack(new Block(VFLHelper.UID(), parent.blockInfo.getId(), "child"), deferred);
+
+        ThreadContextManager.PopCurrentStack(null);
+
+        assertEquals(logBeforeChild, parent.currentLogId);
+        assertTrue(target.events.isEmpty());
+    }
+
+    @Test
+    void keptBlockLeavesTheParentsCurrentLog() {
+        BlockContext parent = ThreadContextManager.PushBlockToThreadLogStack(new Block(VFLHelper.UID(), null, "parent"), target);
+        DeferredBuffer deferred = new DeferredBuffer(target, 0, now(), VFLHelper.UID());
+        VFLId childStartLog = VFLHelper.UID();
+        parent.currentLogId = childStartLog;
+        Block child = new Block(VFLHelper.UID(), parent.blockInfo.getId(), "child");
+        deferred.pushBlockToBuffer(child);
+        ThreadContextManager.PushBlockToThreadLogStack(child, deferred);
+
+        ThreadContextManager.PopCurrentStack(null);
+
+        assertEquals(childStartLog, parent.currentLogId);
+        assertEquals(List.of("block child", "start", "end"), target.events);
+    }
+
+    @Test
+    void keepsBlocksOnceTheMinimumDurationElapsed() {
+        DeferredBuffer deferred = new DeferredBuffer(target, 1_000, now() - 2_000, null);
+        VFLFlowHelper.CreateLogAndPush2Buffer(VFLHelper.UID(), null, LogTypeEnum.MESSAGE, "late", deferred);
+        assertEquals(List.of("log late"), target.events);
+        assertTrue(deferred.finish());
+    }
+
+    @Test
+    void keepsBlocksHoldingTooManyEvents() {
+        DeferredBuffer deferred = new DeferredBuffer(target, ONE_HOUR, now(), null);
+        VFLId blockId = VFLHelper.UID();
+        for (int i = 0; i < DeferredBuffer.MAX_HELD_EVENTS - 1; i++) {
+            deferred.pushLogStartToBuffer(blockId, i);
+        }
+        assertTrue(target.events.isEmpty());
+        deferred.pushLogStartToBuffer(blockId, 0);
+        assertEquals(DeferredBuffer.MAX_HELD_EVENTS, target.events.size());
+        assertTrue(deferred.finish());
+    }
+
+    @Test
+    void droppedBlockIsNotTheParentsSlowestChild() {
+        BlockContext parent = ThreadContextManager.PushBlockToThreadLogStack(new Block(VFLHelper.UID(), null, "parent"), target);
+        ThreadContextManager.PushBlockToThreadLogStack(new Block(VFLHelper.UID(), parent.blockInfo.getId(), "dropped"),
+                new DeferredBuffer(target, ONE_HOUR, now(), null));
+        ThreadContextManager.PopCurrentStack(null);
+        assertNull(parent.slowestChildName);
+
+        ThreadContextManager.PushBlockToThreadLogStack(new Block(VFLHelper.UID(), parent.blockInfo.getId(), "recorded"));
+        ThreadContextManager.PopCurrentStack(null);
+        assertEquals("recorded", parent.slowestChildName);
+    }
+}